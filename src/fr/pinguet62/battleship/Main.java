@@ -1,17 +1,36 @@
 package fr.pinguet62.battleship;
 
+import fr.pinguet62.battleship.server.GameServer;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
 import fr.pinguet62.battleship.view.PlayerTypeView;
 
 /** The main class with main program. */
 public final class Main {
 
     /**
-     * The main program.
+     * The main program.<br />
+     * With <code>--server [port]</code>: run a {@link GameServer} of
+     * {@link ParametersDto#getStandard() standard} games, on port 49152 by
+     * default.<br />
+     * With <code>--lobby [port]</code>: run a {@link GameServer} pairing the
+     * guests requesting the same {@link ParametersDto}, as the "Lobby" option
+     * of guests.
      * 
      * @param args
      *            The arguments.
      */
     public static void main(final String[] args) {
+	if ((0 < args.length) && "--server".equals(args[0])) {
+	    int port = args.length < 2 ? 49152 : Integer.parseInt(args[1]);
+	    new GameServer(port, ParametersDto.getStandard()).start();
+	    return;
+	}
+	if ((0 < args.length) && "--lobby".equals(args[0])) {
+	    int port = args.length < 2 ? 49152 : Integer.parseInt(args[1]);
+	    new GameServer(port).start();
+	    return;
+	}
+
 	new PlayerTypeView();
     }
 }
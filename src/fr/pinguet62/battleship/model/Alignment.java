@@ -3,7 +3,6 @@ package fr.pinguet62.battleship.model;
 import fr.pinguet62.battleship.model.boat.Boat;
 
 /** The {@link Boat} alignment. */
-// TODO used ?
 public enum Alignment {
 
     /** Horizontal alignment. */
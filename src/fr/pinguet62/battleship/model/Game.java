@@ -1,13 +1,15 @@
 package fr.pinguet62.battleship.model;
 
 import java.util.Collection;
+import java.util.function.Function;
 
+import fr.pinguet62.battleship.model.grid.CoordinatesCache;
 import fr.pinguet62.battleship.model.grid.Fleet;
 import fr.pinguet62.battleship.socket.AbstractSocketManager;
-import fr.pinguet62.battleship.socket.GuestSocketManager;
-import fr.pinguet62.battleship.socket.HostSocketManager;
+import fr.pinguet62.battleship.socket.Transport;
 import fr.pinguet62.battleship.socket.dto.ParametersDto;
 import fr.pinguet62.battleship.socket.dto.ParametersDto.BoatEntry;
+import fr.pinguet62.battleship.socket.dto.PositionsDto;
 
 /** General model of this game. */
 public final class Game {
@@ -15,18 +17,21 @@ public final class Game {
     /** The {@link BoatEntry}s. */
     private Collection<BoatEntry> boatEntries;
 
+    /** The {@link CoordinatesCache}. */
+    private CoordinatesCache coordinatesCache;
+
+    /** The {@link GameEngine}. */
+    private volatile GameEngine engine;
+
+    /** The {@link GameEventLoop}. */
+    private final GameEventLoop eventLoop = new GameEventLoop();
+
     /** The height. */
     private int height = -1;
 
     /** The {@link AbstractSocketManager}. */
     private final AbstractSocketManager socketManager;
 
-    /** The current user's {@link Fleet}. */
-    private Fleet myFleet;
-
-    /** The opponent user's {@link Fleet}. */
-    private Fleet opponentFleet;
-
     /** Player type. */
     public final PlayerType playerType;
 
@@ -34,18 +39,30 @@ public final class Game {
     private int width = -1;
 
     /**
-     * Constructor.
+     * Constructor, with the default {@link Transport}.
      * 
      * @param playerType
      *            The {@link PlayerType}.
+     * @see Transport#getDefault()
      */
     public Game(final PlayerType playerType) {
-	this.playerType = playerType;
+	this(playerType, Transport.getDefault().getFactory(playerType));
+    }
 
-	if (playerType.isHost())
-	    socketManager = new HostSocketManager(this);
-	else
-	    socketManager = new GuestSocketManager(this);
+    /**
+     * Constructor with another transport.
+     * 
+     * @param playerType
+     *            The {@link PlayerType}.
+     * @param socketManagerFactory
+     *            The factory of the {@link AbstractSocketManager} of this
+     *            {@link Game}.
+     * @see fr.pinguet62.battleship.socket.LoopbackSocketManager
+     */
+    public Game(final PlayerType playerType,
+	    final Function<Game, AbstractSocketManager> socketManagerFactory) {
+	this.playerType = playerType;
+	socketManager = socketManagerFactory.apply(this);
     }
 
     /**
@@ -57,6 +74,33 @@ public final class Game {
 	return boatEntries;
     }
 
+    /**
+     * Gets the {@link CoordinatesCache} of the grid.
+     * 
+     * @return The {@link CoordinatesCache}.
+     */
+    public CoordinatesCache getCoordinatesCache() {
+	return coordinatesCache;
+    }
+
+    /**
+     * Gets the {@link GameEngine} applying the rules.
+     * 
+     * @return The {@link GameEngine}.
+     */
+    public GameEngine getEngine() {
+	return engine;
+    }
+
+    /**
+     * Gets the {@link GameEventLoop} owning the state of this game.
+     * 
+     * @return The {@link GameEventLoop}.
+     */
+    public GameEventLoop getEventLoop() {
+	return eventLoop;
+    }
+
     /**
      * Gets the height.
      * 
@@ -81,7 +125,7 @@ public final class Game {
      * @return The {@link Fleet}.
      */
     public Fleet getMyFleet() {
-	return myFleet;
+	return engine.getFleet(playerType);
     }
 
     /**
@@ -90,7 +134,7 @@ public final class Game {
      * @return The {@link Fleet}.
      */
     public Fleet getOpponentFleet() {
-	return opponentFleet;
+	return engine.getFleet(GameEngine.getOpponent(playerType));
     }
 
     /**
@@ -111,6 +155,26 @@ public final class Game {
 	return width;
     }
 
+    /**
+     * Validate a chunk of the opponent's {@link PositionsDto}s and load them
+     * into a staging opponent's {@link Fleet}.<br />
+     * The opponent's {@link Fleet} is replaced when all positions are
+     * received, only if all positions are valid.
+     * 
+     * @param positionsDto
+     *            The {@link PositionsDto}.
+     * @return The number of loaded {@link BoatEntry boats},
+     *         {@link GameEngine#getTotalBoats()} when the opponent's
+     *         {@link Fleet} is replaced.
+     * @throws IllegalArgumentException
+     *             Invalid {@link PositionsDto}.
+     * @see GameEngine#loadChunk(PlayerType, Collection)
+     */
+    public int loadOpponentPositions(final PositionsDto positionsDto) {
+	return engine.loadChunk(GameEngine.getOpponent(playerType),
+		positionsDto.getBoatPositions());
+    }
+
     /***
      * Initialize the game with the {@link ParametersDto}.
      * 
@@ -121,9 +185,8 @@ public final class Game {
 	width = parametersDto.getWidth();
 	height = parametersDto.getHeight();
 	boatEntries = parametersDto.getBoatEntries();
-
-	myFleet = new Fleet(this);
-	opponentFleet = new Fleet(this);
+	coordinatesCache = new CoordinatesCache(width, height);
+	engine = new GameEngine(parametersDto);
     }
 
 }
@@ -0,0 +1,454 @@
+package fr.pinguet62.battleship.model;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.battleship.model.boat.BoatType;
+import fr.pinguet62.battleship.model.grid.Box.AttackResult;
+import fr.pinguet62.battleship.model.grid.Coordinates;
+import fr.pinguet62.battleship.model.grid.Fleet;
+import fr.pinguet62.battleship.model.grid.FleetLoader;
+import fr.pinguet62.battleship.socket.dto.BoatPosition;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.battleship.socket.dto.ParametersDto.BoatEntry;
+
+/**
+ * Rules of a game between the {@link PlayerType#HOST} and the
+ * {@link PlayerType#GUEST}, without view nor socket.
+ * <ol>
+ * <li>Each player places its {@link BoatEntry}s into its {@link Fleet};</li>
+ * <li>The players attack the opponent's {@link Fleet} in turn, the host
+ * first unless {@link ParametersDto#isGuestFirst()}: one shot per turn, or
+ * a salvo of several shots if {@link ParametersDto#isSalvo()};</li>
+ * <li>The first player who touches all cells of the opponent's {@link Boat}s
+ * wins.</li>
+ * </ol>
+ * Not thread-safe: must be used by a single thread at a time, for example the
+ * {@link GameEventLoop}.
+ */
+public final class GameEngine {
+
+    /**
+     * Gets the opponent of a player.
+     * 
+     * @param player
+     *            The player.
+     * @return The opponent.
+     */
+    public static PlayerType getOpponent(final PlayerType player) {
+	return player.isHost() ? PlayerType.GUEST : PlayerType.HOST;
+    }
+
+    /** The {@link Fleet} of the {@link PlayerType#GUEST}. */
+    private volatile Fleet guestFleet;
+
+    /**
+     * The streamed loading of the {@link Fleet} of the
+     * {@link PlayerType#GUEST}, <code>null</code> if none.
+     */
+    private FleetLoader guestLoader;
+
+    /** The number of placed {@link Boat}s of each {@link BoatType}. */
+    private final int[] guestPlaced = new int[BoatType.values().length];
+
+    /** The {@link Fleet} of the {@link PlayerType#HOST}. */
+    private volatile Fleet hostFleet;
+
+    /**
+     * The streamed loading of the {@link Fleet} of the
+     * {@link PlayerType#HOST}, <code>null</code> if none.
+     */
+    private FleetLoader hostLoader;
+
+    /** The number of placed {@link Boat}s of each {@link BoatType}. */
+    private final int[] hostPlaced = new int[BoatType.values().length];
+
+    /** The number of {@link Boat}s of each {@link BoatType}. */
+    private final int[] numbers = new int[BoatType.values().length];
+
+    /** The {@link ParametersDto}. */
+    private final ParametersDto parameters;
+
+    /** If an attack has been done. */
+    private boolean started;
+
+    /** The total number of {@link Boat}s of each player. */
+    private final int totalBoats;
+
+    /** The player who must play. */
+    private PlayerType turn;
+
+    /** The winner, <code>null</code> if the game is not over. */
+    private volatile PlayerType winner;
+
+    /**
+     * Constructor.
+     * 
+     * @param parameters
+     *            The {@link ParametersDto}.
+     */
+    public GameEngine(final ParametersDto parameters) {
+	this.parameters = parameters;
+	turn = parameters.isGuestFirst() ? PlayerType.GUEST : PlayerType.HOST;
+	int nbBoats = 0;
+	for (BoatEntry boatEntry : parameters.getBoatEntries()) {
+	    numbers[boatEntry.getBoatType().getId()] += boatEntry.getNumber();
+	    nbBoats += boatEntry.getNumber();
+	}
+	totalBoats = nbBoats;
+	hostFleet = Fleet.getInstance(parameters.getWidth(),
+		parameters.getHeight(), totalBoats);
+	guestFleet = Fleet.getInstance(parameters.getWidth(),
+		parameters.getHeight(), totalBoats);
+    }
+
+    /**
+     * Attack the opponent's {@link Fleet}.<br />
+     * The turn passes to the opponent, unless the attacker wins.
+     * 
+     * @param attacker
+     *            The attacking player.
+     * @param coordinates
+     *            The attacked {@link Coordinates}.
+     * @return The {@link AttackResult}.
+     * @throws IllegalStateException
+     *             {@link Fleet}s not placed, game over, not the turn of the
+     *             attacker, or {@link ParametersDto#isSalvo()}.
+     * @throws IllegalArgumentException
+     *             Invalid {@link Coordinates}, or cell already attacked.
+     */
+    public AttackResult attack(final PlayerType attacker,
+	    final Coordinates coordinates) {
+	checkTurn(attacker);
+	if (parameters.isSalvo())
+	    throw new IllegalStateException("Salvo expected.");
+
+	Fleet fleet = getFleet(GameEngine.getOpponent(attacker));
+	if (fleet.isAttacked(coordinates))
+	    throw new IllegalArgumentException("Cell already attacked.");
+	started = true;
+	AttackResult attackResult = fleet.attack(coordinates);
+	endTurn(attacker, fleet);
+	return attackResult;
+    }
+
+    /**
+     * Check that a player can attack.
+     * 
+     * @param attacker
+     *            The attacking player.
+     * @throws IllegalStateException
+     *             {@link Fleet}s not placed, game over, or not the turn of
+     *             the attacker.
+     */
+    private void checkTurn(final PlayerType attacker) {
+	if (!isReady())
+	    throw new IllegalStateException("Fleets not placed.");
+	if (isGameOver())
+	    throw new IllegalStateException("Game over.");
+	if (!turn.equals(attacker))
+	    throw new IllegalStateException("Not the turn of " + attacker
+		    + ".");
+    }
+
+    /**
+     * End the turn of the attacker: the turn passes to the opponent, unless
+     * the attacker wins.
+     * 
+     * @param attacker
+     *            The attacking player.
+     * @param fleet
+     *            The attacked {@link Fleet}.
+     */
+    private void endTurn(final PlayerType attacker, final Fleet fleet) {
+	if (fleet.getScore().isWin())
+	    winner = attacker;
+	else
+	    turn = GameEngine.getOpponent(attacker);
+    }
+
+    /**
+     * Gets the {@link Fleet} of a player.
+     * 
+     * @param player
+     *            The player.
+     * @return The {@link Fleet}.
+     */
+    public Fleet getFleet(final PlayerType player) {
+	return player.isHost() ? hostFleet : guestFleet;
+    }
+
+    /**
+     * Gets the {@link ParametersDto}.
+     * 
+     * @return The {@link ParametersDto}.
+     */
+    public ParametersDto getParameters() {
+	return parameters;
+    }
+
+    /**
+     * Gets the numbers of placed {@link Boat}s of a player.
+     * 
+     * @param player
+     *            The player.
+     * @return The number of placed {@link Boat}s of each {@link BoatType}.
+     */
+    private int[] getPlaced(final PlayerType player) {
+	return player.isHost() ? hostPlaced : guestPlaced;
+    }
+
+    /**
+     * Gets the number of shots of the next salvo of a player: the fixed
+     * {@link ParametersDto#getSalvo() salvo}, or the number of its surviving
+     * {@link Boat}s; never more than the cells not attacked yet.
+     * 
+     * @param attacker
+     *            The attacking player.
+     * @return The number of shots, 1 if not {@link ParametersDto#isSalvo()}.
+     */
+    public int getShots(final PlayerType attacker) {
+	int shots = parameters.getSalvo();
+	if (shots == ParametersDto.SALVO_PER_BOAT) {
+	    Score boatScore = getFleet(attacker).getBoatScore();
+	    shots = boatScore.getTotal() - boatScore.getActual();
+	}
+	long cells = ((long) parameters.getWidth() * parameters.getHeight())
+		- getFleet(GameEngine.getOpponent(attacker)).getSnapshot()
+			.getAttacks();
+	return (int) Math.min(shots, cells);
+    }
+
+    /**
+     * Gets the total number of {@link Boat}s of each player.
+     * 
+     * @return The number of {@link Boat}s.
+     */
+    public int getTotalBoats() {
+	return totalBoats;
+    }
+
+    /**
+     * Gets the player who must play.
+     * 
+     * @return The player.
+     */
+    public PlayerType getTurn() {
+	return turn;
+    }
+
+    /**
+     * Gets the winner.
+     * 
+     * @return The winner, <code>null</code> if the game is not over.
+     */
+    public PlayerType getWinner() {
+	return winner;
+    }
+
+    /**
+     * Tests if the game is over.
+     * 
+     * @return Result.
+     */
+    public boolean isGameOver() {
+	return winner != null;
+    }
+
+    /**
+     * Tests if a player has placed all its {@link BoatEntry}s.
+     * 
+     * @param player
+     *            The player.
+     * @return Result.
+     */
+    public boolean isPlaced(final PlayerType player) {
+	int[] placed = getPlaced(player);
+	for (int i = 0; i < numbers.length; i++)
+	    if (placed[i] != numbers[i])
+		return false;
+	return true;
+    }
+
+    /**
+     * Tests if both players have placed all their {@link BoatEntry}s.
+     * 
+     * @return Result.
+     */
+    public boolean isReady() {
+	return isPlaced(PlayerType.HOST) && isPlaced(PlayerType.GUEST);
+    }
+
+    /**
+     * Replace the {@link Fleet} of a player by all its {@link BoatPosition}s.
+     * 
+     * @param player
+     *            The player.
+     * @param boatPositions
+     *            The {@link BoatPosition}s.
+     * @throws IllegalStateException
+     *             Game started.
+     * @throws IllegalArgumentException
+     *             Invalid {@link BoatPosition}s: the {@link Fleet} is not
+     *             modified.
+     * @see FleetLoader#load(int, int, int[], Collection)
+     */
+    public void load(final PlayerType player,
+	    final Collection<BoatPosition> boatPositions) {
+	if (started)
+	    throw new IllegalStateException("Game started.");
+
+	Fleet fleet = FleetLoader.load(parameters.getWidth(),
+		parameters.getHeight(), numbers, boatPositions);
+	setLoader(player, null);
+	setFleet(player, fleet);
+    }
+
+    /**
+     * Load a chunk of the {@link BoatPosition}s of a player into a staging
+     * {@link Fleet}, validated incrementally by a {@link FleetLoader}.<br />
+     * When all {@link Boat}s are loaded, the staging {@link Fleet} replaces
+     * the {@link Fleet} of the player.
+     * 
+     * @param player
+     *            The player.
+     * @param boatPositions
+     *            The chunk of {@link BoatPosition}s.
+     * @return The number of loaded {@link Boat}s, {@link #getTotalBoats()}
+     *         when the {@link Fleet} is replaced.
+     * @throws IllegalStateException
+     *             Game started.
+     * @throws IllegalArgumentException
+     *             Invalid {@link BoatPosition}s: the staging {@link Fleet} is
+     *             discarded, the {@link Fleet} is not modified.
+     * @see FleetLoader#add(Collection)
+     */
+    public int loadChunk(final PlayerType player,
+	    final Collection<BoatPosition> boatPositions) {
+	if (started)
+	    throw new IllegalStateException("Game started.");
+
+	FleetLoader loader = player.isHost() ? hostLoader : guestLoader;
+	if (loader == null) {
+	    loader = new FleetLoader(parameters.getWidth(),
+		    parameters.getHeight(), numbers);
+	    setLoader(player, loader);
+	}
+	int loaded;
+	try {
+	    loaded = loader.add(boatPositions);
+	} catch (IllegalArgumentException exception) {
+	    setLoader(player, null);
+	    throw exception;
+	}
+	if (loader.isComplete()) {
+	    setLoader(player, null);
+	    setFleet(player, loader.getFleet());
+	}
+	return loaded;
+    }
+
+    /**
+     * Place a {@link Boat} into the {@link Fleet} of a player.
+     * 
+     * @param player
+     *            The player.
+     * @param boatType
+     *            The {@link BoatType}.
+     * @param first
+     *            The first {@link Coordinates} (top/left).
+     * @param last
+     *            The last {@link Coordinates} (bottom/right).
+     * @throws IllegalStateException
+     *             Game started.
+     * @throws IllegalArgumentException
+     *             Invalid position, or all {@link Boat}s of this
+     *             {@link BoatType} already placed.
+     * @see Fleet#insertBoat(BoatType, Coordinates, Coordinates)
+     */
+    public void place(final PlayerType player, final BoatType boatType,
+	    final Coordinates first, final Coordinates last) {
+	if (started)
+	    throw new IllegalStateException("Game started.");
+	int[] placed = getPlaced(player);
+	if (numbers[boatType.getId()] <= placed[boatType.getId()])
+	    throw new IllegalArgumentException(String.format(
+		    "All %s placed.", boatType.getName()));
+
+	getFleet(player).insertBoat(boatType, first, last);
+	placed[boatType.getId()]++;
+    }
+
+    /**
+     * Attack the opponent's {@link Fleet} with a salvo, applied in one pass
+     * by {@link Fleet#attack(List)}.<br />
+     * The turn passes to the opponent, unless the attacker wins.
+     * 
+     * @param attacker
+     *            The attacking player.
+     * @param coordinates
+     *            The attacked {@link Coordinates}, as many as
+     *            {@link #getShots(PlayerType)}.
+     * @return The {@link AttackResult} of each shot, in order.
+     * @throws IllegalStateException
+     *             {@link Fleet}s not placed, game over, not the turn of the
+     *             attacker, or not {@link ParametersDto#isSalvo()}.
+     * @throws IllegalArgumentException
+     *             Invalid number of shots, invalid {@link Coordinates}, or
+     *             cell already attacked: no cell is attacked.
+     */
+    public AttackResult[] salvo(final PlayerType attacker,
+	    final List<Coordinates> coordinates) {
+	checkTurn(attacker);
+	if (!parameters.isSalvo())
+	    throw new IllegalStateException("Salvo not allowed.");
+	if (coordinates.size() != getShots(attacker))
+	    throw new IllegalArgumentException("Invalid number of shots.");
+
+	Fleet fleet = getFleet(GameEngine.getOpponent(attacker));
+	Set<Coordinates> shots = new HashSet<>();
+	for (Coordinates shot : coordinates)
+	    if (fleet.isAttacked(shot) || !shots.add(shot))
+		throw new IllegalArgumentException("Cell already attacked.");
+	started = true;
+	AttackResult[] attackResults = fleet.attack(coordinates);
+	endTurn(attacker, fleet);
+	return attackResults;
+    }
+
+    /**
+     * Replace the {@link Fleet} of a player by a loaded one: all its
+     * {@link Boat}s are placed.
+     * 
+     * @param player
+     *            The player.
+     * @param fleet
+     *            The loaded {@link Fleet}.
+     */
+    private void setFleet(final PlayerType player, final Fleet fleet) {
+	if (player.isHost())
+	    hostFleet = fleet;
+	else
+	    guestFleet = fleet;
+	System.arraycopy(numbers, 0, getPlaced(player), 0, numbers.length);
+    }
+
+    /**
+     * Sets the streamed loading of the {@link Fleet} of a player.
+     * 
+     * @param player
+     *            The player.
+     * @param loader
+     *            The {@link FleetLoader}, <code>null</code> if none.
+     */
+    private void setLoader(final PlayerType player, final FleetLoader loader) {
+	if (player.isHost())
+	    hostLoader = loader;
+	else
+	    guestLoader = loader;
+    }
+
+}
@@ -0,0 +1,208 @@
+package fr.pinguet62.battleship.model;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single thread owning the state of a {@link Game}.<br />
+ * Other threads (sockets, Swing) {@link #submit(Runnable)} events into a
+ * bounded queue, executed in order by the loop. Events submitted by the loop
+ * itself never block: while the queue is full, they are deferred after the
+ * queued events.
+ * <p>
+ * Received messages are {@link #publish(Class, Object) published} by type and
+ * delivered to the listener of their type; messages received before their
+ * listener is {@link #setListener(Class, Consumer) set} are kept and delivered
+ * at registration, in order.
+ */
+public final class GameEventLoop implements Runnable {
+
+    /** The default capacity of the queue. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** The delay between 2 checks of {@link #stop()}, in milliseconds. */
+    private static final long POLL_DELAY = 100;
+
+    /** The {@link Logger}. */
+    private static final Logger LOGGER = Logger.getLogger(GameEventLoop.class
+	    .getName());
+
+    /**
+     * The events submitted by the loop while the queue is full, moved into
+     * the queue in order as soon as it has room.<br />
+     * Confined to the loop thread.
+     */
+    private final Queue<Runnable> deferred = new ArrayDeque<>();
+
+    /** The queue of events. */
+    private final BlockingQueue<Runnable> events;
+
+    /**
+     * The listener of each type of message.<br />
+     * Confined to the loop thread.
+     */
+    private final Map<Class<?>, Consumer<Object>> listeners = new HashMap<>();
+
+    /**
+     * The messages received without listener, by type.<br />
+     * Confined to the loop thread.
+     */
+    private final Map<Class<?>, Queue<Object>> pendings = new HashMap<>();
+
+    /** If stopped. */
+    private volatile boolean stopped;
+
+    /** The loop {@link Thread}. */
+    private final Thread thread;
+
+    /** Constructor with {@link #DEFAULT_CAPACITY}. */
+    public GameEventLoop() {
+	this(GameEventLoop.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.<br />
+     * Start the loop {@link Thread}.
+     * 
+     * @param capacity
+     *            The capacity of the queue.
+     */
+    public GameEventLoop(final int capacity) {
+	events = new ArrayBlockingQueue<>(capacity);
+	thread = new Thread(this, "Game event loop");
+	thread.setDaemon(true);
+	thread.start();
+    }
+
+    /**
+     * Deliver a message to the listener of its type, or keep it until the
+     * listener is set.
+     * 
+     * @param type
+     *            The type of message.
+     * @param message
+     *            The message.
+     */
+    private void deliver(final Class<?> type, final Object message) {
+	Consumer<Object> listener = listeners.get(type);
+	if (listener != null)
+	    listener.accept(message);
+	else
+	    pendings.computeIfAbsent(type, (key) -> new ArrayDeque<>()).add(
+		    message);
+    }
+
+    /**
+     * Tests if the current {@link Thread} is the loop {@link Thread}.
+     * 
+     * @return Result.
+     */
+    public boolean isLoopThread() {
+	return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Publish a received message, delivered by the loop to the listener of its
+     * type.
+     * 
+     * @param <T>
+     *            The type of message.
+     * @param type
+     *            The type of message.
+     * @param message
+     *            The message.
+     */
+    public <T> void publish(final Class<T> type, final T message) {
+	submit(() -> deliver(type, message));
+    }
+
+    /** Execute events until {@link #stop()}. */
+    @Override
+    public void run() {
+	while (!stopped) {
+	    Runnable event;
+	    try {
+		event = deferred.isEmpty() ? events.take() : events.poll();
+	    } catch (InterruptedException exception) {
+		return;
+	    }
+	    if (event == null)
+		event = deferred.poll();
+	    while (!deferred.isEmpty() && events.offer(deferred.peek()))
+		deferred.poll();
+	    try {
+		event.run();
+	    } catch (RuntimeException exception) {
+		GameEventLoop.LOGGER.log(Level.SEVERE, "Error executing event.",
+			exception);
+	    }
+	}
+    }
+
+    /**
+     * Sets the listener of a type of message.<br />
+     * The messages already received of this type are delivered.
+     * 
+     * @param <T>
+     *            The type of message.
+     * @param type
+     *            The type of message.
+     * @param listener
+     *            The listener, executed by the loop.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void setListener(final Class<T> type,
+	    final Consumer<? super T> listener) {
+	submit(() -> {
+	    listeners.put(type, (Consumer<Object>) listener);
+	    Queue<Object> pending = pendings.remove(type);
+	    if (pending != null)
+		for (Object message : pending)
+		    listener.accept((T) message);
+	});
+    }
+
+    /**
+     * Stop the loop {@link Thread}: pending and next events are ignored, and
+     * the threads blocked by a full queue are released.
+     */
+    public void stop() {
+	stopped = true;
+	thread.interrupt();
+	events.clear();
+    }
+
+    /**
+     * Submit an event, executed by the loop.<br />
+     * Block while the queue is full, until {@link #stop()}; except the loop
+     * {@link Thread}, whose event is deferred.
+     * 
+     * @param event
+     *            The event.
+     */
+    public void submit(final Runnable event) {
+	if (isLoopThread()) {
+	    // Avoid deadlock when the queue is full
+	    if (!deferred.isEmpty() || !events.offer(event))
+		deferred.add(event);
+	    return;
+	}
+	try {
+	    while (!stopped
+		    && !events.offer(event, GameEventLoop.POLL_DELAY,
+			    TimeUnit.MILLISECONDS))
+		;
+	} catch (InterruptedException exception) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+}
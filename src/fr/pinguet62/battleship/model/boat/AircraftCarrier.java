@@ -6,10 +6,6 @@ import fr.pinguet62.battleship.model.grid.Coordinates;
 /** A aircraft carrier. */
 public final class AircraftCarrier extends Boat {
 
-    /** Default constructor. */
-    public AircraftCarrier() {
-    }
-
     /**
      * Constructor.
      * 
@@ -24,13 +20,8 @@ public final class AircraftCarrier extends Boat {
     }
 
     @Override
-    public String getName() {
-	return "Aircraft carrier";
-    }
-
-    @Override
-    public int getSize() {
-	return 4;
+    public BoatType getType() {
+	return BoatType.AIRCRAFT_CARRIER;
     }
 
 }
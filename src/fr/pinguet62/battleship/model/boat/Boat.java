@@ -1,52 +1,25 @@
 package fr.pinguet62.battleship.model.boat;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.logging.Logger;
-
 import fr.pinguet62.battleship.model.Alignment;
-import fr.pinguet62.battleship.model.grid.Box;
 import fr.pinguet62.battleship.model.grid.Coordinates;
 
 /** The abstract boat. */
 public abstract class Boat {
 
-    /** The {@link Logger}. */
-    private static final Logger LOGGGER = Logger
-	    .getLogger(Boat.class.getName());
-
-    /**
-     * Gets an instance of the {@link Boat} {@link Class}, <code>null</code> if
-     * an error occurs.<br />
-     * Use reflection to invoke default constructor.
-     * 
-     * @param boatClass
-     *            The {@link Boat} {@link Class}.
-     * @return The {@link Boat} instance.
-     */
-    public static Boat getInstance(final Class<? extends Boat> boatClass) {
-	try {
-	    Constructor<? extends Boat> defaultConstructor = boatClass
-		    .getConstructor();
-	    return defaultConstructor.newInstance();
-	} catch (NoSuchMethodException | SecurityException
-		| InstantiationException | IllegalAccessException
-		| IllegalArgumentException | InvocationTargetException exception) {
-	    Boat.LOGGGER.severe(exception.getMessage());
-	    return null;
-	}
-    }
+    /** The maximal size of a {@link Boat}. */
+    public static final int MAX_SIZE = Long.SIZE;
 
     /** The {@link Alignment}. */
     private final Alignment alignment;
 
-    /** The {@link Box} on which is placed the boat. */
-    private final Box[] boxs = new Box[getSize()];
+    /** Bitmask of touched cells, the bit <code>i</code> for the cell i. */
+    private long hitMask;
 
-    /** Default constructor. */
-    public Boat() {
-	alignment = null;
-    }
+    /** The number of touched cells. */
+    private int hits;
+
+    /** The {@link Coordinates} at top-left. */
+    private final Coordinates origin;
 
     /**
      * Constructor.
@@ -55,15 +28,13 @@ public abstract class Boat {
      *            The {@link Coordinates} at top-left.
      * @param alignment
      *            The {@link Alignment}.
+     * @throws IllegalArgumentException
+     *             Size greater than {@link #MAX_SIZE}.
      */
     public Boat(final Coordinates coordinates, final Alignment alignment) {
-	for (int i = 0; i < getSize(); i++) {
-	    int sensX = Alignment.HORIZONTAL.equals(alignment) ? 1 : 0;
-	    int sensY = Alignment.VERTICAL.equals(alignment) ? 1 : 0;
-	    Coordinates coordinatesBox = new Coordinates(coordinates.getX()
-		    + (sensX * i), coordinates.getY() + (sensY * i));
-	    boxs[i] = new Box(coordinatesBox, this);
-	}
+	if (Boat.MAX_SIZE < getSize())
+	    throw new IllegalArgumentException("Boat too long.");
+	origin = coordinates;
 	this.alignment = alignment;
     }
 
@@ -77,12 +48,17 @@ public abstract class Boat {
     }
 
     /**
-     * Gets the {@link Box}s.
+     * Gets the {@link Coordinates} of a cell.
      * 
-     * @return The {@link Box}s.
+     * @param index
+     *            The index of cell, from 0 (top/left).
+     * @return The {@link Coordinates}.
      */
-    public Box[] getBoxs() {
-	return boxs;
+    public Coordinates getCoordinates(final int index) {
+	if (Alignment.HORIZONTAL.equals(alignment))
+	    return new Coordinates(origin.getX() + index, origin.getY());
+	else
+	    return new Coordinates(origin.getX(), origin.getY() + index);
     }
 
     /**
@@ -90,25 +66,69 @@ public abstract class Boat {
      * 
      * @return The name.
      */
-    public abstract String getName();
+    public String getName() {
+	return getType().getName();
+    }
 
     /**
      * Gets the size.
      * 
      * @return The size.
      */
-    public abstract int getSize();
+    public int getSize() {
+	return getType().getSize();
+    }
+
+    /**
+     * Gets the {@link BoatType}.
+     * 
+     * @return The {@link BoatType}.
+     */
+    public abstract BoatType getType();
+
+    /**
+     * Gets the {@link Coordinates} at top-left.
+     * 
+     * @return The {@link Coordinates}.
+     */
+    public Coordinates getOrigin() {
+	return origin;
+    }
+
+    /**
+     * Touch a cell.
+     * 
+     * @param index
+     *            The index of cell, from 0 (top/left).
+     * @return <code>true</code> if the cell was not already touched.
+     */
+    public boolean hit(final int index) {
+	long bit = 1L << index;
+	if ((hitMask & bit) != 0)
+	    return false;
+	hitMask |= bit;
+	hits++;
+	return true;
+    }
+
+    /**
+     * Tests if a cell is touched.
+     * 
+     * @param index
+     *            The index of cell, from 0 (top/left).
+     * @return Result.
+     */
+    public boolean isHit(final int index) {
+	return (hitMask & (1L << index)) != 0;
+    }
 
     /**
-     * Tests if is sunk : if all {@link Box} are {@link Box#attack()}.
+     * Tests if is sunk : if all cells are touched.
      * 
      * @return Result.
      */
     public boolean isSunk() {
-	for (Box box : boxs)
-	    if (!box.isAttacked())
-		return false;
-	return true;
+	return hits == getSize();
     }
 
 }
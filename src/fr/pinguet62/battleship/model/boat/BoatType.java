@@ -0,0 +1,123 @@
+package fr.pinguet62.battleship.model.boat;
+
+import java.util.function.BiFunction;
+
+import fr.pinguet62.battleship.model.Alignment;
+import fr.pinguet62.battleship.model.grid.Coordinates;
+
+/**
+ * The registry of {@link Boat} types.<br />
+ * Stores the name and size of each {@link Boat}, and the factory used to
+ * create it without reflection.
+ */
+public enum BoatType {
+
+    /** {@link AircraftCarrier}. */
+    AIRCRAFT_CARRIER(0, "Aircraft carrier", 4, AircraftCarrier::new),
+    /** {@link Cruiser}. */
+    CRUISER(1, "Cruiser", 4, Cruiser::new),
+    /** {@link Destroyer}. */
+    DESTROYER(2, "Destroyer", 3, Destroyer::new),
+    /** {@link Submarine}. */
+    SUBMARINE(3, "Submarine", 3, Submarine::new),
+    /** {@link TorpedoBoat}. */
+    TORPEDO_BOAT(4, "Torpedo boat", 2, TorpedoBoat::new);
+
+    /** The {@link BoatType}s indexed by identifier. */
+    private static final BoatType[] BY_ID;
+
+    static {
+	BoatType[] values = BoatType.values();
+	BY_ID = new BoatType[values.length];
+	for (BoatType boatType : values)
+	    BoatType.BY_ID[boatType.id] = boatType;
+    }
+
+    /**
+     * Gets the {@link BoatType} by its identifier.
+     * 
+     * @param id
+     *            The identifier.
+     * @return The {@link BoatType}.
+     * @throws IllegalArgumentException
+     *             Unknown identifier.
+     */
+    public static BoatType getById(final int id) {
+	if ((id < 0) || (BoatType.BY_ID.length <= id))
+	    throw new IllegalArgumentException("Unknown boat type: " + id);
+	return BoatType.BY_ID[id];
+    }
+
+    /** The factory of {@link Boat}. */
+    private final BiFunction<Coordinates, Alignment, Boat> factory;
+
+    /** The identifier, used into messages. */
+    private final byte id;
+
+    /** The name. */
+    private final String name;
+
+    /** The size. */
+    private final int size;
+
+    /**
+     * Constructor.
+     * 
+     * @param id
+     *            The identifier.
+     * @param name
+     *            The name.
+     * @param size
+     *            The size.
+     * @param factory
+     *            The factory of {@link Boat}.
+     */
+    BoatType(final int id, final String name, final int size,
+	    final BiFunction<Coordinates, Alignment, Boat> factory) {
+	this.id = (byte) id;
+	this.name = name;
+	this.size = size;
+	this.factory = factory;
+    }
+
+    /**
+     * Gets the identifier.
+     * 
+     * @return The identifier.
+     */
+    public byte getId() {
+	return id;
+    }
+
+    /**
+     * Gets the name.
+     * 
+     * @return The name.
+     */
+    public String getName() {
+	return name;
+    }
+
+    /**
+     * Gets the size.
+     * 
+     * @return The size.
+     */
+    public int getSize() {
+	return size;
+    }
+
+    /**
+     * Create a new {@link Boat} of this type.
+     * 
+     * @param origin
+     *            The {@link Coordinates} at top-left.
+     * @param alignment
+     *            The {@link Alignment}.
+     * @return The {@link Boat}.
+     */
+    public Boat newInstance(final Coordinates origin, final Alignment alignment) {
+	return factory.apply(origin, alignment);
+    }
+
+}
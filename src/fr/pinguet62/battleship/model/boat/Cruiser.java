@@ -6,10 +6,6 @@ import fr.pinguet62.battleship.model.grid.Coordinates;
 /** A cruiser. */
 public final class Cruiser extends Boat {
 
-    /** Default constructor. */
-    public Cruiser() {
-    }
-
     /**
      * Constructor.
      * 
@@ -23,13 +19,8 @@ public final class Cruiser extends Boat {
     }
 
     @Override
-    public String getName() {
-	return "Cruiser";
-    }
-
-    @Override
-    public int getSize() {
-	return 4;
+    public BoatType getType() {
+	return BoatType.CRUISER;
     }
 
 }
@@ -6,10 +6,6 @@ import fr.pinguet62.battleship.model.grid.Coordinates;
 /** A destroyer. */
 public final class Destroyer extends Boat {
 
-    /** Default constructor. */
-    public Destroyer() {
-    }
-
     /**
      * Constructor.
      * 
@@ -23,13 +19,8 @@ public final class Destroyer extends Boat {
     }
 
     @Override
-    public String getName() {
-	return "Destroyer";
-    }
-
-    @Override
-    public int getSize() {
-	return 3;
+    public BoatType getType() {
+	return BoatType.DESTROYER;
     }
 
 }
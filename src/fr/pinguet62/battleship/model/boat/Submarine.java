@@ -6,10 +6,6 @@ import fr.pinguet62.battleship.model.grid.Coordinates;
 /** A submarine. */
 public final class Submarine extends Boat {
 
-    /** Default constructor. */
-    public Submarine() {
-    }
-
     /**
      * Constructor.
      * 
@@ -23,13 +19,8 @@ public final class Submarine extends Boat {
     }
 
     @Override
-    public String getName() {
-	return "Submarine";
-    }
-
-    @Override
-    public int getSize() {
-	return 3;
+    public BoatType getType() {
+	return BoatType.SUBMARINE;
     }
 
 }
@@ -6,10 +6,6 @@ import fr.pinguet62.battleship.model.grid.Coordinates;
 /** A torpedo boat. */
 public final class TorpedoBoat extends Boat {
 
-    /** Default constructor. */
-    public TorpedoBoat() {
-    }
-
     /**
      * Constructor.
      * 
@@ -23,13 +19,8 @@ public final class TorpedoBoat extends Boat {
     }
 
     @Override
-    public String getName() {
-	return "Torpedo boat";
-    }
-
-    @Override
-    public int getSize() {
-	return 2;
+    public BoatType getType() {
+	return BoatType.TORPEDO_BOAT;
     }
 
 }
@@ -0,0 +1,83 @@
+package fr.pinguet62.battleship.model.grid;
+
+import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.utils.PackedIntArray;
+
+/**
+ * {@link Fleet} stored into primitive arrays indexed by
+ * <code>y * width + x</code>: bitsets for occupied and attacked cells, and a
+ * {@link PackedIntArray} of {@link Boat} indexes.<br />
+ * Memory is proportional to the area of the grid.
+ */
+final class BitboardFleet extends Fleet {
+
+    /** Bitset of attacked cells. */
+    private final long[] attacked;
+
+    /** Index of the {@link Boat} for each cell, 0 if no {@link Boat}. */
+    private final PackedIntArray boatIndexes;
+
+    /** The maximal number of {@link Boat}s. */
+    private final int maxBoats;
+
+    /** Bitset of cells occupied by a {@link Boat}. */
+    private final long[] occupied;
+
+    /**
+     * Constructor.
+     * 
+     * @param width
+     *            The width of the grid.
+     * @param height
+     *            The height of the grid.
+     * @param maxBoats
+     *            The maximal number of {@link Boat}s.
+     * @throws IllegalArgumentException
+     *             Grid too large.
+     */
+    BitboardFleet(final int width, final int height, final int maxBoats) {
+	super(width, height);
+	long size = (long) width * height;
+	if (Integer.MAX_VALUE < size)
+	    throw new IllegalArgumentException("Grid too large.");
+
+	int words = (int) ((size + Long.SIZE - 1) / Long.SIZE);
+	occupied = new long[words];
+	attacked = new long[words];
+	boatIndexes = new PackedIntArray((int) size, maxBoats);
+	this.maxBoats = maxBoats;
+    }
+
+    @Override
+    protected int getBoatIndex(final int x, final int y) {
+	int index = (y * width) + x;
+	if ((occupied[index >>> 6] & (1L << index)) == 0)
+	    return 0;
+	return boatIndexes.get(index);
+    }
+
+    @Override
+    protected int getMaxBoats() {
+	return maxBoats;
+    }
+
+    @Override
+    protected boolean isAttacked(final int x, final int y) {
+	int index = (y * width) + x;
+	return (attacked[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    protected void setAttacked(final int x, final int y) {
+	int index = (y * width) + x;
+	attacked[index >>> 6] |= 1L << index;
+    }
+
+    @Override
+    protected void setBoatIndex(final int x, final int y, final int boatIndex) {
+	int index = (y * width) + x;
+	occupied[index >>> 6] |= 1L << index;
+	boatIndexes.set(index, boatIndex);
+    }
+
+}
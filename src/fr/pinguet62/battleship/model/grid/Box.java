@@ -2,7 +2,7 @@ package fr.pinguet62.battleship.model.grid;
 
 import fr.pinguet62.battleship.model.boat.Boat;
 
-/** A box consists {@link Fleet}. */
+/** A box consists {@link Fleet}: view of a cell of the {@link Fleet}. */
 public final class Box {
 
     /** The result of an attack. */
@@ -16,36 +16,24 @@ public final class Box {
 	TOUCHED;
     }
 
-    /** If is attacked. */
-    private boolean attacked;
-
-    /** The {@link Boat}. */
-    private final Boat boat;
-
     /** The {@link Coordinates}. */
     private final Coordinates coordinates;
 
-    /**
-     * Constructor.
-     * 
-     * @param coordinates
-     *            The {@link Coordinates}.
-     */
-    public Box(final Coordinates coordinates) {
-	this(coordinates, null);
-    }
+    /** The {@link Fleet}. */
+    private final Fleet fleet;
 
     /**
-     * Full constructor.
+     * Constructor.<br />
+     * The state is read from and written to the {@link Fleet}.
      * 
+     * @param fleet
+     *            The {@link Fleet}.
      * @param coordinates
      *            The {@link Coordinates}.
-     * @param boat
-     *            The {@link Boat}.
      */
-    public Box(final Coordinates coordinates, final Boat boat) {
+    Box(final Fleet fleet, final Coordinates coordinates) {
+	this.fleet = fleet;
 	this.coordinates = coordinates;
-	this.boat = boat;
     }
 
     /**
@@ -54,13 +42,7 @@ public final class Box {
      * @return The {@link AttackResult}.
      */
     public AttackResult attack() {
-	attacked = true;
-	if (boat == null)
-	    return AttackResult.FAILED;
-	else if (boat.isSunk())
-	    return AttackResult.SUNK;
-	else
-	    return AttackResult.TOUCHED;
+	return fleet.attack(coordinates);
     }
 
     /**
@@ -69,7 +51,7 @@ public final class Box {
      * @return The {@link Boat} or <code>null</code>.
      */
     public Boat getBoat() {
-	return boat;
+	return fleet.getBoat(coordinates);
     }
 
     /**
@@ -87,7 +69,7 @@ public final class Box {
      * @return Result.
      */
     public boolean isAttacked() {
-	return attacked;
+	return fleet.isAttacked(coordinates);
     }
 
 }
@@ -2,17 +2,45 @@ package fr.pinguet62.battleship.model.grid;
 
 import java.io.Serializable;
 
-/** Coordinates in grid. */
+/**
+ * Immutable coordinates in grid.<br />
+ * Can be packed into a <code>long</code>: see {@link #pack()}.
+ */
 public final class Coordinates implements Serializable {
 
     /** Serial version UID. */
     private static final long serialVersionUID = -799359244428776811L;
 
+    /**
+     * Packs horizontal and vertical indexes into a <code>long</code>: the
+     * vertical index in high bits, the horizontal index in low bits.
+     * 
+     * @param x
+     *            The horizontal index.
+     * @param y
+     *            The vertical index.
+     * @return The packed value.
+     */
+    public static long pack(final int x, final int y) {
+	return ((long) y << 32) | (x & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Unpacks {@link Coordinates} packed by {@link #pack(int, int)}.
+     * 
+     * @param packed
+     *            The packed value.
+     * @return The {@link Coordinates}.
+     */
+    public static Coordinates unpack(final long packed) {
+	return new Coordinates((int) packed, (int) (packed >>> 32));
+    }
+
     /** The horizontal index. */
-    private int x;
+    private final int x;
 
     /** The vertical index. */
-    private int y;
+    private final int y;
 
     /**
      * Constructor.
@@ -27,6 +55,16 @@ public final class Coordinates implements Serializable {
 	this.y = y;
     }
 
+    @Override
+    public boolean equals(final Object object) {
+	if (this == object)
+	    return true;
+	if (!(object instanceof Coordinates))
+	    return false;
+	Coordinates coordinates = (Coordinates) object;
+	return (x == coordinates.x) && (y == coordinates.y);
+    }
+
     /**
      * Gets the horizontal index.
      * 
@@ -45,24 +83,19 @@ public final class Coordinates implements Serializable {
 	return y;
     }
 
-    /**
-     * Sets the horizontal index.
-     * 
-     * @param x
-     *            The horizontal index.
-     */
-    public void setX(final int x) {
-	this.x = x;
+    @Override
+    public int hashCode() {
+	return Long.hashCode(pack() * 0x9E3779B97F4A7C15L);
     }
 
     /**
-     * Sets the vertical index.
+     * Packs into a <code>long</code>.
      * 
-     * @param y
-     *            The vertical index.
+     * @return The packed value.
+     * @see #pack(int, int)
      */
-    public void setY(final int y) {
-	this.y = y;
+    public long pack() {
+	return Coordinates.pack(x, y);
     }
 
     @Override
@@ -0,0 +1,66 @@
+package fr.pinguet62.battleship.model.grid;
+
+/**
+ * Canonical {@link Coordinates} instances of a grid.<br />
+ * Small grids share one instance per cell, created on first use; large grids
+ * (more than {@link #MAX_CELLS} cells) create a new instance each time.
+ */
+public final class CoordinatesCache {
+
+    /** The maximal number of cells of a cached grid. */
+    public static final int MAX_CELLS = 1 << 16;
+
+    /**
+     * The cached {@link Coordinates} indexed by <code>y * width + x</code>,
+     * <code>null</code> if the grid is too large.
+     */
+    private final Coordinates[] coordinatess;
+
+    /** The height. */
+    private final int height;
+
+    /** The width. */
+    private final int width;
+
+    /**
+     * Constructor.
+     * 
+     * @param width
+     *            The width.
+     * @param height
+     *            The height.
+     */
+    public CoordinatesCache(final int width, final int height) {
+	this.width = width;
+	this.height = height;
+	long size = (long) width * height;
+	if (size <= CoordinatesCache.MAX_CELLS)
+	    coordinatess = new Coordinates[(int) size];
+	else
+	    coordinatess = null;
+    }
+
+    /**
+     * Gets the {@link Coordinates}.
+     * 
+     * @param x
+     *            The horizontal index.
+     * @param y
+     *            The vertical index.
+     * @return The {@link Coordinates}, shared if into a cached grid.
+     */
+    public Coordinates get(final int x, final int y) {
+	if ((coordinatess == null) || (x < 0) || (width <= x) || (y < 0)
+		|| (height <= y))
+	    return new Coordinates(x, y);
+
+	int index = (y * width) + x;
+	Coordinates coordinates = coordinatess[index];
+	if (coordinates == null) {
+	    coordinates = new Coordinates(x, y);
+	    coordinatess[index] = coordinates;
+	}
+	return coordinates;
+    }
+
+}
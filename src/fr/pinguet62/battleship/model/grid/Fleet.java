@@ -1,105 +1,533 @@
 package fr.pinguet62.battleship.model.grid;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
-import fr.pinguet62.battleship.model.Game;
+import fr.pinguet62.battleship.model.Alignment;
 import fr.pinguet62.battleship.model.Score;
 import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.battleship.model.boat.BoatType;
+import fr.pinguet62.battleship.model.grid.Box.AttackResult;
 
-/** The fleet of player. */
-public final class Fleet {
+/**
+ * The fleet of player.<br />
+ * The storage of cells depends on the implementation: see
+ * {@link BitboardFleet} and {@link SparseFleet}. {@link Box}s are only views
+ * created on demand by {@link #getBox(Coordinates)}.<br />
+ * The {@link Score}s are maintained by counters updated on each attack.
+ * <p>
+ * Thread-safe: writes ({@link #attack(Coordinates)}, {@link #attack(List)},
+ * {@link #insertBoat(BoatType, Coordinates, Coordinates)}) are atomic, and
+ * publish a new immutable {@link Snapshot} of counters. Readers never take a
+ * lock on the common path: {@link Snapshot}s are read from a volatile field,
+ * and cells are read with optimistic reads of a {@link StampedLock}.
+ */
+public abstract class Fleet {
+
+    /** Immutable state of the counters of a {@link Fleet}. */
+    public static final class Snapshot {
+
+	/** The number of attacks. */
+	private final int attacks;
+
+	/** The number of cells occupied by a {@link Boat}. */
+	private final int boatCells;
+
+	/** The number of {@link Boat}s. */
+	private final int boats;
+
+	/** The number of attacked cells occupied by a {@link Boat}. */
+	private final int hitCells;
+
+	/** The number of sunk {@link Boat}s. */
+	private final int sunkBoats;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param attacks
+	 *            The number of attacks.
+	 * @param boatCells
+	 *            The number of cells occupied by a {@link Boat}.
+	 * @param hitCells
+	 *            The number of attacked cells occupied by a {@link Boat}.
+	 * @param boats
+	 *            The number of {@link Boat}s.
+	 * @param sunkBoats
+	 *            The number of sunk {@link Boat}s.
+	 */
+	private Snapshot(final int attacks, final int boatCells,
+		final int hitCells, final int boats, final int sunkBoats) {
+	    this.attacks = attacks;
+	    this.boatCells = boatCells;
+	    this.hitCells = hitCells;
+	    this.boats = boats;
+	    this.sunkBoats = sunkBoats;
+	}
+
+	/**
+	 * Gets the number of attacks, used as version of the {@link Fleet}.
+	 * 
+	 * @return The number of attacks.
+	 */
+	public int getAttacks() {
+	    return attacks;
+	}
+
+	/**
+	 * Gets the {@link Score} of sunk {@link Boat}s.
+	 * 
+	 * @return The {@link Score}.
+	 */
+	public Score getBoatScore() {
+	    return new Score(sunkBoats, boats);
+	}
+
+	/**
+	 * Gets the {@link Score} of touched cells.
+	 * 
+	 * @return The {@link Score}.
+	 */
+	public Score getScore() {
+	    return new Score(hitCells, boatCells);
+	}
+
+    }
+
+    /**
+     * The maximal number of cells of a {@link BitboardFleet}.<br />
+     * Larger grids use a {@link SparseFleet}.
+     */
+    public static final long BITBOARD_MAX_CELLS = 1 << 24;
+
+    /**
+     * Gets a new {@link Fleet} adapted to the size of grid: a
+     * {@link BitboardFleet} for small grids, a {@link SparseFleet} otherwise.
+     * 
+     * @param width
+     *            The width of the grid.
+     * @param height
+     *            The height of the grid.
+     * @param maxBoats
+     *            The maximal number of {@link Boat}s.
+     * @return The {@link Fleet}.
+     */
+    public static Fleet getInstance(final int width, final int height,
+	    final int maxBoats) {
+	long size = (long) width * height;
+	if (size <= Fleet.BITBOARD_MAX_CELLS)
+	    return new BitboardFleet(width, height, maxBoats);
+	else
+	    return new SparseFleet(width, height);
+    }
+
+    /** The number of attacks. */
+    private int attacks;
+
+    /** The number of cells occupied by a {@link Boat}. */
+    private int boatCells;
 
     /** The {@link Boat}s. */
-    private final Collection<Boat> boats = new ArrayList<>();
+    private final List<Boat> boats = new ArrayList<>();
+
+    /** The height. */
+    protected final int height;
+
+    /** The number of attacked cells occupied by a {@link Boat}. */
+    private int hitCells;
 
-    /** The grid of {@link Box}. */
-    private final Box[][] boxss;
+    /** The {@link StampedLock} of cells and counters. */
+    private final StampedLock lock = new StampedLock();
+
+    /** The last published {@link Snapshot}. */
+    private volatile Snapshot snapshot = new Snapshot(0, 0, 0, 0, 0);
+
+    /** The number of sunk {@link Boat}s. */
+    private int sunkBoats;
+
+    /** The width. */
+    protected final int width;
 
     /**
      * Constructor.
      * 
-     * @param game
-     *            The {@link Game}.
+     * @param width
+     *            The width of the grid.
+     * @param height
+     *            The height of the grid.
      */
-    public Fleet(final Game game) {
-	boxss = new Box[game.getHeight()][game.getWidth()];
-	for (int y = 0; y < boxss.length; y++)
-	    for (int x = 0; x < boxss[y].length; x++)
-		boxss[y][x] = new Box(new Coordinates(x, y));
+    protected Fleet(final int width, final int height) {
+	this.width = width;
+	this.height = height;
     }
 
     /**
-     * Gets the {@link Box} at {@link Coordinates}.
+     * Attack the cell at {@link Coordinates}.
+     * 
+     * @param coordinates
+     *            The {@link Coordinates}.
+     * @return The {@link AttackResult}.
+     */
+    public AttackResult attack(final Coordinates coordinates) {
+	checkBounds(coordinates);
+	long stamp = lock.writeLock();
+	try {
+	    AttackResult attackResult = attack(coordinates.getX(),
+		    coordinates.getY());
+	    publish();
+	    return attackResult;
+	} finally {
+	    lock.unlockWrite(stamp);
+	}
+    }
+
+    /**
+     * Attack a cell.<br />
+     * Must be called with the write lock.
+     * 
+     * @param x
+     *            The horizontal index.
+     * @param y
+     *            The vertical index.
+     * @return The {@link AttackResult}.
+     */
+    private AttackResult attack(final int x, final int y) {
+	attacks++;
+	setAttacked(x, y);
+	Boat boat = getBoat(x, y);
+	if (boat == null)
+	    return AttackResult.FAILED;
+	Coordinates origin = boat.getOrigin();
+	int index = (x - origin.getX()) + (y - origin.getY());
+	if (boat.hit(index)) {
+	    hitCells++;
+	    if (boat.isSunk())
+		sunkBoats++;
+	}
+	return boat.isSunk() ? AttackResult.SUNK : AttackResult.TOUCHED;
+    }
+
+    /**
+     * Attack the cells of a salvo, in one pass: one write lock, one
+     * {@link Snapshot} published.
+     * 
+     * @param coordinates
+     *            The {@link Coordinates} of the shots, in order.
+     * @return The {@link AttackResult} of each shot, in order.
+     * @throws IllegalArgumentException
+     *             {@link Coordinates} out of grid: no cell is attacked.
+     */
+    public AttackResult[] attack(final List<Coordinates> coordinates) {
+	for (Coordinates shot : coordinates)
+	    checkBounds(shot);
+	AttackResult[] attackResults = new AttackResult[coordinates.size()];
+	long stamp = lock.writeLock();
+	try {
+	    int i = 0;
+	    for (Coordinates shot : coordinates)
+		attackResults[i++] = attack(shot.getX(), shot.getY());
+	    publish();
+	    return attackResults;
+	} finally {
+	    lock.unlockWrite(stamp);
+	}
+    }
+
+    /**
+     * Tests if a {@link Boat} can be inserted, without side effect.
+     * 
+     * @param boatType
+     *            The {@link BoatType}.
+     * @param first
+     *            The first {@link Coordinates} (top/left).
+     * @param last
+     *            The last {@link Coordinates} (bottom/right).
+     * @return Result.
+     * @see #insertBoat(BoatType, Coordinates, Coordinates)
+     */
+    public boolean canPlace(final BoatType boatType, final Coordinates first,
+	    final Coordinates last) {
+	return read(() -> checkPlacement(boatType, first, last) == null);
+    }
+
+    /**
+     * Check that {@link Coordinates} are into the grid.
+     * 
+     * @param coordinates
+     *            The {@link Coordinates}.
+     * @throws IllegalArgumentException
+     *             {@link Coordinates} out of grid.
+     */
+    private void checkBounds(final Coordinates coordinates) {
+	int x = coordinates.getX();
+	int y = coordinates.getY();
+	if ((x < 0) || (width <= x) || (y < 0) || (height <= y))
+	    throw new IllegalArgumentException("Invalid coordinates.");
+    }
+
+    /**
+     * Check that a {@link Boat} can be inserted: the {@link Coordinates} are
+     * aligned and into the grid, the length is the size of the
+     * {@link BoatType}, and no cell is already occupied.<br />
+     * Cost proportional to the length of the {@link Boat}.
+     * 
+     * @param boatType
+     *            The {@link BoatType}.
+     * @param first
+     *            The first {@link Coordinates} (top/left).
+     * @param last
+     *            The last {@link Coordinates} (bottom/right).
+     * @return The error message, <code>null</code> if valid.
+     */
+    private String checkPlacement(final BoatType boatType,
+	    final Coordinates first, final Coordinates last) {
+	final int x1 = first.getX();
+	final int y1 = first.getY();
+	final int x2 = last.getX();
+	final int y2 = last.getY();
+	if ((x1 != x2) && (y1 != y2))
+	    return "Coordinates not aligned.";
+	if ((x1 < 0) || (y1 < 0) || (width <= x2) || (height <= y2)
+		|| (x2 < x1) || (y2 < y1))
+	    return "Coordinates out of grid.";
+	if ((((x2 - x1) + (y2 - y1)) + 1) != boatType.getSize())
+	    return "Invalid boat length.";
+	if (getMaxBoats() <= boats.size())
+	    return "Too many boats.";
+
+	for (int x = x1; x <= x2; x++)
+	    for (int y = y1; y <= y2; y++)
+		if (getBoatIndex(x, y) != 0)
+		    return "A boat already exists in these positions.";
+	return null;
+    }
+
+    /**
+     * Gets the {@link Boat} at {@link Coordinates}, <code>null</code> if no
+     * {@link Boat} above.
+     * 
+     * @param coordinates
+     *            The {@link Coordinates}.
+     * @return The {@link Boat} or <code>null</code>.
+     */
+    public Boat getBoat(final Coordinates coordinates) {
+	checkBounds(coordinates);
+	return read(() -> getBoat(coordinates.getX(), coordinates.getY()));
+    }
+
+    /**
+     * Gets the {@link Boat} of a cell, <code>null</code> if water.
+     * 
+     * @param x
+     *            The horizontal index.
+     * @param y
+     *            The vertical index.
+     * @return The {@link Boat} or <code>null</code>.
+     */
+    private Boat getBoat(final int x, final int y) {
+	int boatIndex = getBoatIndex(x, y);
+	return boatIndex == 0 ? null : boats.get(boatIndex - 1);
+    }
+
+    /**
+     * Gets the index of the {@link Boat} of a cell.
+     * 
+     * @param x
+     *            The horizontal index.
+     * @param y
+     *            The vertical index.
+     * @return The index of the {@link Boat} into the inserted {@link Boat}s
+     *         plus 1, 0 if water.
+     */
+    protected abstract int getBoatIndex(final int x, final int y);
+
+    /**
+     * Gets the {@link Score} of sunk {@link Boat}s.
+     * 
+     * @return The {@link Score}.
+     */
+    public Score getBoatScore() {
+	return snapshot.getBoatScore();
+    }
+
+    /**
+     * Gets a view of the {@link Box} at {@link Coordinates}.
      * 
      * @param coordinates
      *            The {@link Coordinates}.
      * @return The {@link Box}.
      */
     public Box getBox(final Coordinates coordinates) {
-	return boxss[coordinates.getY()][coordinates.getX()];
+	checkBounds(coordinates);
+	return new Box(this, coordinates);
+    }
+
+    /**
+     * Gets the maximal number of {@link Boat}s the storage can index.
+     * 
+     * @return The maximal number of {@link Boat}s.
+     */
+    protected int getMaxBoats() {
+	return Integer.MAX_VALUE;
     }
 
     /**
-     * Gets the {@link Score}.
+     * Gets the {@link Score} of touched cells.
      * 
      * @return The {@link Score}.
      */
     public Score getScore() {
-	int actual = 0;
-	int total = 0;
-	for (Box[] boxs : boxss)
-	    for (Box box : boxs)
-		if (box.getBoat() != null) {
-		    total++;
-		    if (box.isAttacked())
-			actual++;
-		}
-	return new Score(actual, total);
+	return snapshot.getScore();
+    }
+
+    /**
+     * Gets the last published {@link Snapshot} of counters, without lock.
+     * 
+     * @return The {@link Snapshot}.
+     */
+    public Snapshot getSnapshot() {
+	return snapshot;
     }
 
     /**
      * Insert {@link Boat}. <br />
-     * Update {@link Box}ss of {@link Fleet} and {@link Box}s of {@link Boat}. <br />
+     * Update cells of {@link Fleet}. <br />
      * The first and last {@link Coordinates} must be aligned (vertical or
      * horizontal).
      * 
-     * @param boatClass
-     *            The {@link Boat} class.
+     * @param boatType
+     *            The {@link BoatType}.
      * @param first
      *            The first {@link Coordinates} (top/left).
      * @param last
      *            The last {@link Coordinates} (bottom/right).
      * @throws IllegalArgumentException
-     *             Invalid {@link Coordinates} or a {@link Boat} already exists
-     *             in they positions.
+     *             Invalid {@link Coordinates}, length different from the size
+     *             of {@link BoatType}, or a {@link Boat} already exists in
+     *             they positions.
      */
-    public void insertBoat(final Class<? extends Boat> boatClass,
+    public void insertBoat(final BoatType boatType,
 	    final Coordinates first, final Coordinates last) {
-	if ((first.getX() != last.getX()) && (first.getY() != last.getY()))
-	    throw new IllegalArgumentException("Invalid coordinates.");
+	long stamp = lock.writeLock();
+	try {
+	    String error = checkPlacement(boatType, first, last);
+	    if (error != null)
+		throw new IllegalArgumentException(error);
 
-	Boat boat = Boat.getInstance(boatClass);
+	    Alignment alignment = first.getX() == last.getX()
+		    && first.getY() != last.getY() ? Alignment.VERTICAL
+		    : Alignment.HORIZONTAL;
+	    Boat boat = boatType.newInstance(first, alignment);
+	    boats.add(boat);
+	    final int boatIndex = boats.size();
 
-	// Vertical
-	if (first.getX() == last.getX()) {
-	    final int x = first.getX();
-	    for (int y = first.getY(), i = 0; y <= last.getY(); y++, i++) {
-		Box box = new Box(new Coordinates(x, y), boat);
-		boxss[y][x] = box;
-		boat.getBoxs()[i] = box;
+	    // Vertical
+	    if (Alignment.VERTICAL.equals(alignment)) {
+		final int x = first.getX();
+		for (int y = first.getY(); y <= last.getY(); y++)
+		    setBoatIndex(x, y, boatIndex);
+	    }
+	    // Horizontal
+	    else {
+		final int y = first.getY();
+		for (int x = first.getX(); x <= last.getX(); x++)
+		    setBoatIndex(x, y, boatIndex);
 	    }
+	    boatCells += boat.getSize();
+	    publish();
+	} finally {
+	    lock.unlockWrite(stamp);
 	}
-	// Horizontal
-	else {
-	    final int y = first.getY();
-	    for (int x = first.getX(), i = 0; x <= last.getX(); x++, i++) {
-		Box box = new Box(new Coordinates(x, y), boat);
-		boxss[y][x] = box;
-		boat.getBoxs()[i] = box;
+    }
+
+    /**
+     * Tests if the cell at {@link Coordinates} is attacked.
+     * 
+     * @param coordinates
+     *            The {@link Coordinates}.
+     * @return Result.
+     */
+    public boolean isAttacked(final Coordinates coordinates) {
+	checkBounds(coordinates);
+	return read(() -> isAttacked(coordinates.getX(), coordinates.getY()));
+    }
+
+    /**
+     * Tests if a cell is attacked.
+     * 
+     * @param x
+     *            The horizontal index.
+     * @param y
+     *            The vertical index.
+     * @return Result.
+     */
+    protected abstract boolean isAttacked(final int x, final int y);
+
+    /**
+     * Publish a new {@link Snapshot} of counters.<br />
+     * Must be called with the write lock.
+     */
+    private void publish() {
+	snapshot = new Snapshot(attacks, boatCells, hitCells, boats.size(),
+		sunkBoats);
+    }
+
+    /**
+     * Read cells and counters.<br />
+     * Try first an optimistic read, without lock: if a write occurs during the
+     * read, the result (or exception, because of inconsistent state) is
+     * ignored and the read is retried under read lock.
+     * 
+     * @param <T>
+     *            The type of result.
+     * @param reader
+     *            The reader, without side effect.
+     * @return The result.
+     */
+    private <T> T read(final Supplier<T> reader) {
+	long stamp = lock.tryOptimisticRead();
+	if (stamp != 0)
+	    try {
+		T result = reader.get();
+		if (lock.validate(stamp))
+		    return result;
+	    } catch (RuntimeException exception) {
+		if (lock.validate(stamp))
+		    throw exception;
 	    }
+
+	stamp = lock.readLock();
+	try {
+	    return reader.get();
+	} finally {
+	    lock.unlockRead(stamp);
 	}
-	boats.add(boat);
     }
 
+    /**
+     * Mark a cell as attacked.
+     * 
+     * @param x
+     *            The horizontal index.
+     * @param y
+     *            The vertical index.
+     */
+    protected abstract void setAttacked(final int x, final int y);
+
+    /**
+     * Mark a cell as occupied by a {@link Boat}.
+     * 
+     * @param x
+     *            The horizontal index.
+     * @param y
+     *            The vertical index.
+     * @param boatIndex
+     *            The index of the {@link Boat} into the inserted {@link Boat}s
+     *            plus 1.
+     */
+    protected abstract void setBoatIndex(final int x, final int y,
+	    final int boatIndex);
+
 }
@@ -0,0 +1,254 @@
+package fr.pinguet62.battleship.model.grid;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.battleship.model.boat.BoatType;
+import fr.pinguet62.battleship.socket.dto.BoatPosition;
+
+/**
+ * Validate {@link BoatPosition}s received from opponent and load them into a
+ * new {@link Fleet}.<br />
+ * No existing {@link Fleet} is modified: the new {@link Fleet} is returned
+ * only if all {@link BoatPosition}s are valid.
+ * <p>
+ * All {@link BoatPosition}s are loaded at once by
+ * {@link #load(int, int, int[], Collection)}, or streamed by chunks into an
+ * instance: each chunk is validated and inserted into a staging {@link Fleet}
+ * by {@link #add(Collection)}, so that only one chunk is kept in memory.
+ */
+public final class FleetLoader {
+
+    /**
+     * The minimal number of {@link BoatPosition}s for which the validation is
+     * parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 10_000;
+
+    /**
+     * Validate the {@link BoatPosition}s and build the {@link Fleet}.
+     * <ol>
+     * <li>Each {@link BoatPosition} is into the grid, aligned, and its length
+     * is the size of its {@link BoatType};</li>
+     * <li>The number of each {@link BoatType} is the expected one;</li>
+     * <li>{@link Boat}s don't overlap.</li>
+     * </ol>
+     * The 2 first steps are parallel for large inputs.
+     * 
+     * @param width
+     *            The width of the grid.
+     * @param height
+     *            The height of the grid.
+     * @param expected
+     *            The expected number of {@link Boat}s of each
+     *            {@link BoatType}, indexed by {@link BoatType#getId()}.
+     * @param boatPositions
+     *            The {@link BoatPosition}s.
+     * @return The new {@link Fleet}.
+     * @throws IllegalArgumentException
+     *             Invalid {@link BoatPosition}s.
+     */
+    public static Fleet load(final int width, final int height,
+	    final int[] expected,
+	    final Collection<BoatPosition> boatPositions) {
+	if (boatPositions == null)
+	    throw new IllegalArgumentException("No boat positions.");
+
+	// Positions
+	if (FleetLoader.stream(boatPositions).anyMatch(
+		(boatPosition) -> !FleetLoader.isValid(width, height,
+			boatPosition)))
+	    throw new IllegalArgumentException("Invalid boat position.");
+
+	// Numbers
+	final int nbTypes = BoatType.values().length;
+	int[] numbers = FleetLoader.stream(boatPositions).collect(
+		() -> new int[nbTypes],
+		(counts, boatPosition) -> counts[boatPosition.getBoatType()
+			.getId()]++, (counts1, counts2) -> {
+		    for (int i = 0; i < nbTypes; i++)
+			counts1[i] += counts2[i];
+		});
+	int nbBoats = 0;
+	for (int i = 0; i < nbTypes; i++) {
+	    if (numbers[i] != expected[i])
+		throw new IllegalArgumentException(String.format(
+			"Invalid number of %s.", BoatType.getById(i).getName()));
+	    nbBoats += numbers[i];
+	}
+
+	// Overlaps
+	Fleet fleet = Fleet.getInstance(width, height, nbBoats);
+	for (BoatPosition boatPosition : boatPositions)
+	    fleet.insertBoat(boatPosition.getBoatType(),
+		    boatPosition.getFirstCoordinate(),
+		    boatPosition.getLastCoordinate());
+	return fleet;
+    }
+
+    /**
+     * Tests if a {@link BoatPosition} is valid, independently of others.
+     * 
+     * @param width
+     *            The width of the grid.
+     * @param height
+     *            The height of the grid.
+     * @param boatPosition
+     *            The {@link BoatPosition}.
+     * @return Result.
+     */
+    private static boolean isValid(final int width, final int height,
+	    final BoatPosition boatPosition) {
+	if ((boatPosition == null) || (boatPosition.getFirstCoordinate() == null)
+		|| (boatPosition.getLastCoordinate() == null))
+	    return false;
+	BoatType boatType;
+	try {
+	    boatType = boatPosition.getBoatType();
+	} catch (IllegalArgumentException exception) {
+	    return false;
+	}
+
+	int x1 = boatPosition.getFirstCoordinate().getX();
+	int y1 = boatPosition.getFirstCoordinate().getY();
+	int x2 = boatPosition.getLastCoordinate().getX();
+	int y2 = boatPosition.getLastCoordinate().getY();
+	return ((x1 == x2) || (y1 == y2)) && (0 <= x1) && (x1 <= x2)
+		&& (x2 < width) && (0 <= y1) && (y1 <= y2) && (y2 < height)
+		&& ((((x2 - x1) + (y2 - y1)) + 1) == boatType.getSize());
+    }
+
+    /**
+     * Gets a {@link Stream} of {@link BoatPosition}s, parallel if there are
+     * more than {@link #PARALLEL_THRESHOLD} {@link BoatPosition}s.
+     * 
+     * @param boatPositions
+     *            The {@link BoatPosition}s.
+     * @return The {@link Stream}.
+     */
+    private static Stream<BoatPosition> stream(
+	    final Collection<BoatPosition> boatPositions) {
+	if (boatPositions.size() < FleetLoader.PARALLEL_THRESHOLD)
+	    return boatPositions.stream();
+	else
+	    return boatPositions.parallelStream();
+    }
+
+    /** The expected number of {@link Boat}s of each {@link BoatType}. */
+    private final int[] expected;
+
+    /** The staging {@link Fleet}. */
+    private final Fleet fleet;
+
+    /** The height of the grid. */
+    private final int height;
+
+    /** The number of loaded {@link Boat}s. */
+    private int loaded;
+
+    /** The number of loaded {@link Boat}s of each {@link BoatType}. */
+    private final int[] numbers = new int[BoatType.values().length];
+
+    /** The expected number of {@link Boat}s. */
+    private final int total;
+
+    /** The width of the grid. */
+    private final int width;
+
+    /**
+     * Constructor of a streamed loading.
+     * 
+     * @param width
+     *            The width of the grid.
+     * @param height
+     *            The height of the grid.
+     * @param expected
+     *            The expected number of {@link Boat}s of each
+     *            {@link BoatType}, indexed by {@link BoatType#getId()}.
+     */
+    public FleetLoader(final int width, final int height,
+	    final int[] expected) {
+	this.width = width;
+	this.height = height;
+	this.expected = expected.clone();
+	int nbBoats = 0;
+	for (int number : expected)
+	    nbBoats += number;
+	total = nbBoats;
+	fleet = Fleet.getInstance(width, height, nbBoats);
+    }
+
+    /**
+     * Validate a chunk of {@link BoatPosition}s and insert them into the
+     * staging {@link Fleet}.<br />
+     * After an {@link IllegalArgumentException}, the loading must be
+     * discarded.
+     * 
+     * @param boatPositions
+     *            The chunk of {@link BoatPosition}s.
+     * @return The number of loaded {@link Boat}s, chunk included.
+     * @throws IllegalArgumentException
+     *             Invalid {@link BoatPosition}, too many {@link Boat}s of a
+     *             {@link BoatType}, or overlap.
+     */
+    public int add(final Collection<BoatPosition> boatPositions) {
+	if (boatPositions == null)
+	    throw new IllegalArgumentException("No boat positions.");
+	for (BoatPosition boatPosition : boatPositions) {
+	    if (!FleetLoader.isValid(width, height, boatPosition))
+		throw new IllegalArgumentException("Invalid boat position.");
+	    BoatType boatType = boatPosition.getBoatType();
+	    if (expected[boatType.getId()] <= numbers[boatType.getId()])
+		throw new IllegalArgumentException(String.format(
+			"Invalid number of %s.", boatType.getName()));
+	    fleet.insertBoat(boatType, boatPosition.getFirstCoordinate(),
+		    boatPosition.getLastCoordinate());
+	    numbers[boatType.getId()]++;
+	    loaded++;
+	}
+	return loaded;
+    }
+
+    /**
+     * Gets the loaded {@link Fleet}.
+     * 
+     * @return The {@link Fleet}.
+     * @throws IllegalStateException
+     *             Not {@link #isComplete()}.
+     */
+    public Fleet getFleet() {
+	if (!isComplete())
+	    throw new IllegalStateException(String.format(
+		    "%d boats loaded of %d.", loaded, total));
+	return fleet;
+    }
+
+    /**
+     * Gets the number of loaded {@link Boat}s.
+     * 
+     * @return The number of {@link Boat}s.
+     */
+    public int getLoaded() {
+	return loaded;
+    }
+
+    /**
+     * Gets the expected number of {@link Boat}s.
+     * 
+     * @return The number of {@link Boat}s.
+     */
+    public int getTotal() {
+	return total;
+    }
+
+    /**
+     * Tests if all {@link Boat}s are loaded.
+     * 
+     * @return Result.
+     */
+    public boolean isComplete() {
+	return loaded == total;
+    }
+
+}
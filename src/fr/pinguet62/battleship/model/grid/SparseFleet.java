@@ -0,0 +1,58 @@
+package fr.pinguet62.battleship.model.grid;
+
+import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.utils.LongIntHashMap;
+
+/**
+ * {@link Fleet} storing only the cells occupied by a {@link Boat} or attacked,
+ * keyed by packed {@link Coordinates}.<br />
+ * Other cells have no entry: they are empty water. Memory is proportional to
+ * the number of {@link Boat} cells and attacks, not to the area of the grid.
+ */
+final class SparseFleet extends Fleet {
+
+    /** Flag of the value of an attacked cell. */
+    private static final int ATTACKED = 1 << 31;
+
+    /**
+     * The stored cells.<br />
+     * The value is the index of the {@link Boat}, with the {@link #ATTACKED}
+     * flag if attacked.
+     */
+    private final LongIntHashMap cells = new LongIntHashMap();
+
+    /**
+     * Constructor.
+     * 
+     * @param width
+     *            The width of the grid.
+     * @param height
+     *            The height of the grid.
+     */
+    SparseFleet(final int width, final int height) {
+	super(width, height);
+    }
+
+    @Override
+    protected int getBoatIndex(final int x, final int y) {
+	return cells.get(Coordinates.pack(x, y), 0) & ~SparseFleet.ATTACKED;
+    }
+
+    @Override
+    protected boolean isAttacked(final int x, final int y) {
+	return (cells.get(Coordinates.pack(x, y), 0) & SparseFleet.ATTACKED) != 0;
+    }
+
+    @Override
+    protected void setAttacked(final int x, final int y) {
+	long key = Coordinates.pack(x, y);
+	cells.put(key, cells.get(key, 0) | SparseFleet.ATTACKED);
+    }
+
+    @Override
+    protected void setBoatIndex(final int x, final int y, final int boatIndex) {
+	long key = Coordinates.pack(x, y);
+	cells.put(key, (cells.get(key, 0) & SparseFleet.ATTACKED) | boatIndex);
+    }
+
+}
@@ -0,0 +1,249 @@
+package fr.pinguet62.battleship.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.pinguet62.battleship.socket.SocketException;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.utils.LatencyHistogram;
+
+/**
+ * Server hosting many games between guest clients.
+ * <p>
+ * An acceptor {@link Thread} accepts the connections and passes them to the
+ * {@link Lobby}, which pairs them into {@link GameSession}s:
+ * <ul>
+ * <li>with fixed {@link ParametersDto}, the guests are paired in order of
+ * connection;</li>
+ * <li>otherwise, each guest first sends the {@link ParametersDto} it requests,
+ * read by the {@link RequestReader}, and is paired with a guest requesting the
+ * same {@link ParametersDto}.</li>
+ * </ul>
+ * Each {@link GameSession} is assigned to one of the {@link ServerLoop}s (one
+ * per processor by default), which multiplex many {@link GameSession}s with
+ * non-blocking channels.<br />
+ * The server sends the {@link ParametersDto} to both clients (the first
+ * connected plays first), then relays their positions and attacks after
+ * checking them.
+ */
+public final class GameServer implements Closeable, Runnable {
+
+    /** The {@link Thread} accepting connections. */
+    private final Thread acceptor;
+
+    /** The {@link ServerSocketChannel}. */
+    private final ServerSocketChannel channel;
+
+    /** The round-trip times of all {@link Peer}s, in microseconds. */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /** The {@link Lobby}. */
+    private final Lobby lobby;
+
+    /** The {@link ServerLoop}s. */
+    private final ServerLoop[] loops;
+
+    /** The index of the {@link ServerLoop} of the next {@link GameSession}. */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * The {@link ParametersDto} of all games, <code>null</code> if requested by
+     * guests.
+     */
+    private final ParametersDto parameters;
+
+    /**
+     * The {@link RequestReader}, <code>null</code> with fixed
+     * {@link ParametersDto}.
+     */
+    private final RequestReader requestReader;
+
+    /** The number of open {@link GameSession}s. */
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    /**
+     * Constructor of a lobby: {@link ParametersDto} requested by guests, one
+     * {@link ServerLoop} per processor.
+     * 
+     * @param port
+     *            The port, <code>0</code> for any free port.
+     * @throws SocketException
+     *             Error opening the server channel.
+     */
+    public GameServer(final int port) {
+	this(port, null, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor with fixed {@link ParametersDto}, one {@link ServerLoop} per
+     * processor.
+     * 
+     * @param port
+     *            The port, <code>0</code> for any free port.
+     * @param parameters
+     *            The {@link ParametersDto} of games.
+     * @throws SocketException
+     *             Error opening the server channel.
+     */
+    public GameServer(final int port, final ParametersDto parameters) {
+	this(port, parameters, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param port
+     *            The port, <code>0</code> for any free port.
+     * @param parameters
+     *            The {@link ParametersDto} of games, <code>null</code> if
+     *            requested by guests.
+     * @param nbLoops
+     *            The number of {@link ServerLoop}s.
+     * @throws SocketException
+     *             Error opening the server channel.
+     */
+    public GameServer(final int port, final ParametersDto parameters,
+	    final int nbLoops) {
+	if (nbLoops <= 0)
+	    throw new IllegalArgumentException("Invalid number of loops.");
+	this.parameters = parameters;
+	lobby = new Lobby(this);
+	requestReader = parameters == null ? new RequestReader(lobby) : null;
+
+	try {
+	    channel = ServerSocketChannel.open();
+	    channel.bind(new InetSocketAddress(port));
+	} catch (IOException exception) {
+	    throw new SocketException("Error opening server channel.",
+		    exception);
+	}
+	loops = new ServerLoop[nbLoops];
+	for (int i = 0; i < nbLoops; i++)
+	    loops[i] = new ServerLoop(i);
+	acceptor = new Thread(this, "Game server acceptor");
+    }
+
+    /** Stop accepting connections, and close all {@link GameSession}s. */
+    @Override
+    public void close() {
+	try {
+	    channel.close();
+	} catch (IOException e) {
+	}
+	if (requestReader != null)
+	    requestReader.stop();
+	lobby.close();
+	for (ServerLoop loop : loops)
+	    loop.stop();
+    }
+
+    /**
+     * Gets the round-trip times of heartbeats, of all clients.
+     * 
+     * @return The {@link LatencyHistogram}, in microseconds.
+     */
+    public LatencyHistogram getLatencies() {
+	return latencies;
+    }
+
+    /**
+     * Gets the {@link Lobby}, with statistics of pairings.
+     * 
+     * @return The {@link Lobby}.
+     */
+    public Lobby getLobby() {
+	return lobby;
+    }
+
+    /**
+     * Gets the {@link ParametersDto} of all games.
+     * 
+     * @return The {@link ParametersDto}, <code>null</code> if requested by
+     *         guests.
+     */
+    public ParametersDto getParameters() {
+	return parameters;
+    }
+
+    /**
+     * Gets the local port.
+     * 
+     * @return The port.
+     */
+    public int getPort() {
+	return channel.socket().getLocalPort();
+    }
+
+    /**
+     * Gets the number of open {@link GameSession}s.
+     * 
+     * @return The number.
+     */
+    public int getSessionCount() {
+	return sessions.get();
+    }
+
+    /** A {@link GameSession} has been closed. */
+    void onSessionClosed() {
+	sessions.decrementAndGet();
+    }
+
+    /** Accept connections until {@link #close()}. */
+    @Override
+    public void run() {
+	try {
+	    while (true) {
+		SocketChannel accepted = channel.accept();
+		if (requestReader != null)
+		    requestReader.register(accepted);
+		else
+		    try {
+			accepted.configureBlocking(false);
+			lobby.enqueue(accepted, parameters);
+		    } catch (IOException exception) {
+			try {
+			    accepted.close();
+			} catch (IOException e) {
+			}
+		    }
+	    }
+	} catch (IOException exception) {
+	    // Closed
+	}
+    }
+
+    /** Start the {@link ServerLoop}s and accept connections. */
+    public void start() {
+	for (ServerLoop loop : loops)
+	    loop.start();
+	if (requestReader != null)
+	    requestReader.start();
+	acceptor.start();
+	System.out.println("Game server listening on port " + getPort()
+		+ ".");
+    }
+
+    /**
+     * Start a {@link GameSession} between 2 guests, into the next
+     * {@link ServerLoop}.
+     * 
+     * @param sessionParameters
+     *            The {@link ParametersDto} of the {@link GameSession}.
+     * @param first
+     *            The {@link SocketChannel} of the guest playing first.
+     * @param second
+     *            The {@link SocketChannel} of the guest playing second.
+     */
+    void startSession(final ParametersDto sessionParameters,
+	    final SocketChannel first, final SocketChannel second) {
+	sessions.incrementAndGet();
+	int index = Math.floorMod(next.getAndIncrement(), loops.length);
+	loops[index].register(new GameSession(this, sessionParameters, first,
+		second));
+    }
+
+}
@@ -0,0 +1,195 @@
+package fr.pinguet62.battleship.server;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.SocketChannel;
+
+import fr.pinguet62.battleship.model.GameEngine;
+import fr.pinguet62.battleship.model.PlayerType;
+import fr.pinguet62.battleship.socket.codec.MessageEncoder;
+import fr.pinguet62.battleship.socket.dto.AttackDto;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.battleship.socket.dto.ParametersDto.BoatEntry;
+import fr.pinguet62.battleship.socket.dto.PingDto;
+import fr.pinguet62.battleship.socket.dto.PongDto;
+import fr.pinguet62.battleship.socket.dto.PositionsDto;
+import fr.pinguet62.battleship.socket.dto.SalvoDto;
+
+/**
+ * A game between 2 {@link Peer}s of the {@link GameServer}.<br />
+ * Each message is checked by the {@link GameEngine} of the session, then its
+ * frame is relayed unchanged to the opponent. Any invalid message closes the
+ * session.<br />
+ * Heartbeats are answered by the server, not relayed.<br />
+ * Confined to the thread of its {@link ServerLoop}.
+ */
+final class GameSession {
+
+    /** If the session is closed. */
+    private boolean closed;
+
+    /** The {@link GameEngine} checking messages. */
+    private final GameEngine engine;
+
+    /**
+     * The first {@link Peer}, {@link PlayerType#HOST} into the
+     * {@link GameEngine}.
+     */
+    private final Peer first;
+
+    /**
+     * The second {@link Peer}, {@link PlayerType#GUEST} into the
+     * {@link GameEngine}.
+     */
+    private final Peer second;
+
+    /** The maximal length of a received frame. */
+    private final int maxFrameLength;
+
+    /** The {@link ParametersDto}. */
+    private final ParametersDto parameters;
+
+    /** The {@link GameServer}. */
+    private final GameServer server;
+
+    /**
+     * Constructor.
+     * 
+     * @param server
+     *            The {@link GameServer}.
+     * @param parameters
+     *            The {@link ParametersDto}.
+     * @param firstChannel
+     *            The {@link SocketChannel} of the first player.
+     * @param secondChannel
+     *            The {@link SocketChannel} of the second player.
+     */
+    GameSession(final GameServer server, final ParametersDto parameters,
+	    final SocketChannel firstChannel, final SocketChannel secondChannel) {
+	this.server = server;
+	this.parameters = parameters;
+	engine = new GameEngine(parameters);
+	// Positions: type and number, then at most 21 bytes per boat
+	long nbBoats = 0;
+	for (BoatEntry boatEntry : parameters.getBoatEntries())
+	    nbBoats += boatEntry.getNumber();
+	// Salvo: type and number, then at most 10 bytes per shot
+	long nbShots = parameters.getSalvo();
+	if (nbShots == ParametersDto.SALVO_PER_BOAT)
+	    nbShots = nbBoats;
+	maxFrameLength = (int) Math.min(Integer.MAX_VALUE,
+		Math.max(6 + (21 * nbBoats), 6 + (10 * nbShots)));
+	first = new Peer(this, PlayerType.HOST, firstChannel);
+	second = new Peer(this, PlayerType.GUEST, secondChannel);
+    }
+
+    /** Close the {@link Peer}s. */
+    void close() {
+	if (closed)
+	    return;
+	closed = true;
+	first.close();
+	second.close();
+	server.onSessionClosed();
+    }
+
+    /**
+     * Gets the first {@link Peer}.
+     * 
+     * @return The {@link Peer}.
+     */
+    Peer getFirst() {
+	return first;
+    }
+
+    /**
+     * Gets the maximal length of a received frame.
+     * 
+     * @return The length.
+     */
+    int getMaxFrameLength() {
+	return maxFrameLength;
+    }
+
+    /**
+     * Gets the second {@link Peer}.
+     * 
+     * @return The {@link Peer}.
+     */
+    Peer getSecond() {
+	return second;
+    }
+
+    /**
+     * Check a message with the {@link GameEngine}, and relay its frame to the
+     * opponent.<br />
+     * A {@link PingDto} is answered, at most one per half interval of
+     * heartbeats, and a {@link PongDto} recorded into the
+     * {@link fr.pinguet62.battleship.socket.Heartbeat} of the sender.
+     * 
+     * @param from
+     *            The sender.
+     * @param message
+     *            The message.
+     * @param frame
+     *            The bytes of the frame.
+     * @param offset
+     *            The offset of the frame.
+     * @param length
+     *            The length of the frame.
+     * @throws IOException
+     *             Invalid message, or error writing to the opponent.
+     */
+    void onMessage(final Peer from, final Object message, final byte[] frame,
+	    final int offset, final int length) throws IOException {
+	if (message instanceof PingDto) {
+	    if (!from.acceptPing(System.nanoTime()))
+		return;
+	    byte[] pong = new MessageEncoder().encode(
+		    new PongDto(((PingDto) message).getTimestamp())).getFrame();
+	    from.send(pong, 0, pong.length);
+	    return;
+	}
+	if (message instanceof PongDto) {
+	    server.getLatencies().record(
+		    from.getHeartbeat().onPong((PongDto) message,
+			    System.nanoTime()));
+	    return;
+	}
+
+	try {
+	    if (message instanceof PositionsDto)
+		engine.loadChunk(from.getPlayer(),
+			((PositionsDto) message).getBoatPositions());
+	    else if (message instanceof AttackDto)
+		engine.attack(from.getPlayer(),
+			((AttackDto) message).getCoordinates());
+	    else if (message instanceof SalvoDto)
+		engine.salvo(from.getPlayer(),
+			((SalvoDto) message).getCoordinates());
+	    else
+		throw new StreamCorruptedException("Unexpected message.");
+	} catch (IllegalArgumentException | IllegalStateException exception) {
+	    throw new StreamCorruptedException(exception.getMessage());
+	}
+	(from == first ? second : first).send(frame, offset, length);
+    }
+
+    /**
+     * Send the parameters to both {@link Peer}s: the first one plays
+     * first.<br />
+     * Both clients are guests.
+     * 
+     * @throws IOException
+     *             Error writing.
+     */
+    void start() throws IOException {
+	byte[] firstFrame = server.getLobby().getParametersFrame(parameters,
+		true);
+	first.send(firstFrame, 0, firstFrame.length);
+	byte[] secondFrame = server.getLobby().getParametersFrame(parameters,
+		false);
+	second.send(secondFrame, 0, secondFrame.length);
+    }
+
+}
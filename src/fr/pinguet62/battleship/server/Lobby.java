@@ -0,0 +1,280 @@
+package fr.pinguet62.battleship.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.pinguet62.battleship.socket.codec.MessageDecoder;
+import fr.pinguet62.battleship.socket.codec.MessageEncoder;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.battleship.socket.dto.ParametersDto.BoatEntry;
+
+/**
+ * Matchmaking of the {@link GameServer}: pairs the guests waiting for the same
+ * {@link ParametersDto}, as soon as a pair forms.<br />
+ * The frames of each distinct {@link ParametersDto} are encoded once, and
+ * reused by all {@link GameSession}s with the same {@link ParametersDto}.
+ * <p>
+ * Thread-safe.
+ */
+public final class Lobby {
+
+    /** The encoded frames of a {@link ParametersDto}. */
+    private static final class Frames {
+
+	/** The frame for the player playing first. */
+	private final byte[] first;
+
+	/** The frame for the player playing second. */
+	private final byte[] second;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param parameters
+	 *            The {@link ParametersDto}.
+	 */
+	private Frames(final ParametersDto parameters) {
+	    MessageEncoder encoder = new MessageEncoder();
+	    first = encoder.encode(
+		    new ParametersDto(parameters.getWidth(), parameters
+			    .getHeight(), parameters.getBoatEntries(), true,
+			    parameters.getSalvo())).getFrame();
+	    second = encoder.encode(
+		    new ParametersDto(parameters.getWidth(), parameters
+			    .getHeight(), parameters.getBoatEntries(), false,
+			    parameters.getSalvo())).getFrame();
+	}
+
+    }
+
+    /** A guest waiting for an opponent. */
+    private static final class Waiting {
+
+	/** The {@link SocketChannel}. */
+	private final SocketChannel channel;
+
+	/** The time of arrival, in nanoseconds. */
+	private final long since = System.nanoTime();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param channel
+	 *            The {@link SocketChannel}.
+	 */
+	private Waiting(final SocketChannel channel) {
+	    this.channel = channel;
+	}
+
+    }
+
+    /** The maximal number of distinct {@link ParametersDto} cached. */
+    public static final int MAX_CACHED_PARAMETERS = 1024;
+
+    /** The maximal number of cells of a requested grid. */
+    public static final long MAX_CELLS = MessageDecoder.MAX_GRID_CELLS;
+
+    /**
+     * Tests if a waiting guest is still connected: neither end of stream nor
+     * bytes received, nothing being expected before pairing.<br />
+     * The {@link SocketChannel} must be non-blocking.
+     * 
+     * @param channel
+     *            The {@link SocketChannel} of the guest.
+     * @return Result.
+     */
+    private static boolean isConnected(final SocketChannel channel) {
+	try {
+	    return channel.read(ByteBuffer.allocate(1)) == 0;
+	} catch (IOException exception) {
+	    return false;
+	}
+    }
+
+    /**
+     * Tests if requested {@link ParametersDto} are acceptable: grid not
+     * larger than {@link #MAX_CELLS}, and at least one boat, fewer than
+     * cells.
+     * 
+     * @param parameters
+     *            The {@link ParametersDto}.
+     * @return Result.
+     */
+    public static boolean isValid(final ParametersDto parameters) {
+	int width = parameters.getWidth();
+	int height = parameters.getHeight();
+	if ((width <= 0) || (height <= 0)
+		|| (Lobby.MAX_CELLS < ((long) width * height)))
+	    return false;
+	long nbBoats = 0;
+	for (BoatEntry boatEntry : parameters.getBoatEntries())
+	    nbBoats += boatEntry.getNumber();
+	return (0 < nbBoats) && (nbBoats <= ((long) width * height));
+    }
+
+    /** The frames of each distinct {@link ParametersDto}. */
+    private final Map<ParametersDto, Frames> frames = new ConcurrentHashMap<>();
+
+    /** The maximal waiting time, in nanoseconds. */
+    private long maxWait;
+
+    /** The number of pairings. */
+    private long pairings;
+
+    /** The {@link GameServer}. */
+    private final GameServer server;
+
+    /** The time of creation, in nanoseconds. */
+    private final long start = System.nanoTime();
+
+    /** The total waiting time of paired guests, in nanoseconds. */
+    private long totalWait;
+
+    /** The waiting guest of each {@link ParametersDto}. */
+    private final Map<ParametersDto, Waiting> waitings = new HashMap<>();
+
+    /**
+     * Constructor.
+     * 
+     * @param server
+     *            The {@link GameServer}.
+     */
+    Lobby(final GameServer server) {
+	this.server = server;
+    }
+
+    /** Close the connections of waiting guests. */
+    synchronized void close() {
+	for (Waiting waiting : waitings.values())
+	    try {
+		waiting.channel.close();
+	    } catch (IOException e) {
+	    }
+	waitings.clear();
+    }
+
+    /**
+     * Add a guest: paired with the guest waiting for the same
+     * {@link ParametersDto} if any, otherwise waits.<br />
+     * A waiting guest disconnected is closed and replaced, instead of being
+     * paired.
+     * 
+     * @param channel
+     *            The non-blocking {@link SocketChannel} of the guest.
+     * @param requested
+     *            The requested {@link ParametersDto}.
+     * @return The {@link SocketChannel} of the paired guest,
+     *         <code>null</code> if waiting.
+     */
+    SocketChannel enqueue(final SocketChannel channel,
+	    final ParametersDto requested) {
+	// Who plays first is decided by the server
+	ParametersDto parameters = new ParametersDto(requested.getWidth(),
+		requested.getHeight(), new ArrayList<>(
+			requested.getBoatEntries()), false,
+		requested.getSalvo());
+	Waiting waiting;
+	synchronized (this) {
+	    waiting = waitings.remove(parameters);
+	    if ((waiting != null) && !Lobby.isConnected(waiting.channel)) {
+		try {
+		    waiting.channel.close();
+		} catch (IOException e) {
+		}
+		waiting = null;
+	    }
+	    if (waiting == null) {
+		waitings.put(parameters, new Waiting(channel));
+		return null;
+	    }
+	    long wait = System.nanoTime() - waiting.since;
+	    pairings++;
+	    totalWait += wait;
+	    maxWait = Math.max(maxWait, wait);
+	}
+	server.startSession(parameters, waiting.channel, channel);
+	return waiting.channel;
+    }
+
+    /**
+     * Gets the average waiting time of paired guests.
+     * 
+     * @return The time, in milliseconds.
+     */
+    public synchronized double getAverageWaitMillis() {
+	return pairings == 0 ? 0 : (totalWait / 1e6) / pairings;
+    }
+
+    /**
+     * Gets the maximal waiting time of paired guests.
+     * 
+     * @return The time, in milliseconds.
+     */
+    public synchronized double getMaxWaitMillis() {
+	return maxWait / 1e6;
+    }
+
+    /**
+     * Gets the number of pairings.
+     * 
+     * @return The number.
+     */
+    public synchronized long getPairings() {
+	return pairings;
+    }
+
+    /**
+     * Gets the average number of pairings per second, since the creation.
+     * 
+     * @return The number.
+     */
+    public synchronized double getPairingsPerSecond() {
+	return pairings / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Gets the frame of {@link ParametersDto} sent to a player, encoded once
+     * per distinct {@link ParametersDto}.
+     * 
+     * @param parameters
+     *            The {@link ParametersDto}.
+     * @param first
+     *            If the player plays first.
+     * @return The frame, not to modify.
+     */
+    byte[] getParametersFrame(final ParametersDto parameters,
+	    final boolean first) {
+	Frames parametersFrames = frames.get(parameters);
+	if (parametersFrames == null) {
+	    parametersFrames = new Frames(parameters);
+	    if (frames.size() < Lobby.MAX_CACHED_PARAMETERS)
+		frames.putIfAbsent(parameters, parametersFrames);
+	}
+	return first ? parametersFrames.first : parametersFrames.second;
+    }
+
+    /**
+     * Gets the number of waiting guests.
+     * 
+     * @return The number.
+     */
+    public synchronized int getWaitingCount() {
+	return waitings.size();
+    }
+
+    /**
+     * Remove a waiting guest, disconnected.
+     * 
+     * @param channel
+     *            The {@link SocketChannel} of the guest.
+     */
+    synchronized void remove(final SocketChannel channel) {
+	waitings.values().removeIf((waiting) -> waiting.channel == channel);
+    }
+
+}
@@ -0,0 +1,278 @@
+package fr.pinguet62.battleship.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import fr.pinguet62.battleship.model.PlayerType;
+import fr.pinguet62.battleship.socket.Heartbeat;
+import fr.pinguet62.battleship.socket.codec.MessageDecoder;
+import fr.pinguet62.battleship.socket.dto.PingDto;
+
+/**
+ * A client connected to the {@link GameServer}, player of a
+ * {@link GameSession}.<br />
+ * Buffers are small, grown only for a large frame and released after it.<br />
+ * The bytes waiting to be sent are limited: a {@link Peer} not reading its
+ * frames closes its {@link GameSession}.<br />
+ * Confined to the thread of its {@link ServerLoop}.
+ */
+final class Peer {
+
+    /** The initial size of the read buffer. */
+    private static final int BUFFER_SIZE = 256;
+
+    /**
+     * The maximal number of bytes waiting to be sent, in frames of the
+     * maximal length.
+     */
+    private static final int MAX_PENDING_FRAMES = 4;
+
+    /** The minimal limit of bytes waiting to be sent. */
+    private static final int MIN_PENDING = 1 << 16;
+
+    /** The {@link SocketChannel}. */
+    private final SocketChannel channel;
+
+    /** The {@link Heartbeat}, ticked by the {@link ServerLoop}. */
+    private final Heartbeat heartbeat = Heartbeat.newInstance();
+
+    /** The {@link SelectionKey}, <code>null</code> before registration. */
+    private SelectionKey key;
+
+    /** The maximal number of bytes waiting to be sent. */
+    private final int maxPending;
+
+    /**
+     * The time from which the next {@link PingDto} is answered, from
+     * {@link System#nanoTime()}.
+     */
+    private long nextPing = System.nanoTime();
+
+    /** The player into the {@link GameSession}. */
+    private final PlayerType player;
+
+    /** The buffer of received bytes, in write mode. */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(Peer.BUFFER_SIZE);
+
+    /** The {@link GameSession}. */
+    private final GameSession session;
+
+    /**
+     * The buffer of bytes to send, in write mode, <code>null</code> if all
+     * bytes are sent.
+     */
+    private ByteBuffer writeBuffer;
+
+    /**
+     * Constructor.
+     * 
+     * @param session
+     *            The {@link GameSession}.
+     * @param player
+     *            The player into the {@link GameSession}.
+     * @param channel
+     *            The connected {@link SocketChannel}.
+     */
+    Peer(final GameSession session, final PlayerType player,
+	    final SocketChannel channel) {
+	this.session = session;
+	this.player = player;
+	this.channel = channel;
+	maxPending = (int) Math.min(Integer.MAX_VALUE, Math.max(
+		Peer.MIN_PENDING, (long) Peer.MAX_PENDING_FRAMES
+			* session.getMaxFrameLength()));
+    }
+
+    /**
+     * Accept a received {@link PingDto}: at most one per half interval of the
+     * {@link Heartbeat}, the others are ignored.
+     * 
+     * @param now
+     *            The timestamp, from {@link System#nanoTime()}.
+     * @return <code>true</code> if the {@link PingDto} must be answered.
+     */
+    boolean acceptPing(final long now) {
+	if ((now - nextPing) < 0)
+	    return false;
+	nextPing = now
+		+ TimeUnit.MILLISECONDS.toNanos(heartbeat.getInterval() / 2);
+	return true;
+    }
+
+    /**
+     * Check the number of bytes waiting to be sent.
+     * 
+     * @param pending
+     *            The number of bytes.
+     * @throws IOException
+     *             More than the limit.
+     */
+    private void checkPending(final int pending) throws IOException {
+	if (maxPending < pending)
+	    throw new IOException("Too many bytes waiting to be sent.");
+    }
+
+    /** Close the {@link SocketChannel}. */
+    void close() {
+	try {
+	    channel.close();
+	} catch (IOException e) {
+	}
+    }
+
+    /**
+     * Send the pending bytes.<br />
+     * Stop listening writable events once all bytes are sent.
+     * 
+     * @throws IOException
+     *             Error writing.
+     */
+    void flush() throws IOException {
+	if (writeBuffer == null)
+	    return;
+	writeBuffer.flip();
+	channel.write(writeBuffer);
+	if (writeBuffer.hasRemaining())
+	    writeBuffer.compact();
+	else {
+	    writeBuffer = null;
+	    key.interestOps(SelectionKey.OP_READ);
+	}
+    }
+
+    /**
+     * Gets the {@link SocketChannel}.
+     * 
+     * @return The {@link SocketChannel}.
+     */
+    SocketChannel getChannel() {
+	return channel;
+    }
+
+    /**
+     * Gets the {@link Heartbeat}.
+     * 
+     * @return The {@link Heartbeat}.
+     */
+    Heartbeat getHeartbeat() {
+	return heartbeat;
+    }
+
+    /**
+     * Gets the player into the {@link GameSession}.
+     * 
+     * @return The player.
+     */
+    PlayerType getPlayer() {
+	return player;
+    }
+
+    /**
+     * Gets the {@link GameSession}.
+     * 
+     * @return The {@link GameSession}.
+     */
+    GameSession getSession() {
+	return session;
+    }
+
+    /**
+     * Read available bytes, and pass each complete frame to the
+     * {@link GameSession}.
+     * 
+     * @param decoder
+     *            The {@link MessageDecoder} of the {@link ServerLoop}.
+     * @param maxFrameLength
+     *            The maximal length of a frame.
+     * @throws IOException
+     *             Error reading, end of stream, or invalid frame.
+     */
+    void read(final MessageDecoder decoder, final int maxFrameLength)
+	    throws IOException {
+	if (channel.read(readBuffer) < 0)
+	    throw new EOFException();
+	heartbeat.onReceived(System.nanoTime());
+
+	readBuffer.flip();
+	byte[] bytes = readBuffer.array();
+	int needed = 0;
+	while (readBuffer.hasRemaining()) {
+	    int start = readBuffer.position();
+	    int size = MessageDecoder.getFrameSize(readBuffer, maxFrameLength);
+	    if ((size < 0) || (readBuffer.remaining() < size)) {
+		needed = size;
+		break;
+	    }
+
+	    Object message = decoder.decodeFrame(bytes, start, size);
+	    readBuffer.position(start + size);
+	    session.onMessage(this, message, bytes, start, size);
+	}
+
+	// Buffer adapted to the next frame
+	if (readBuffer.capacity() < needed) {
+	    ByteBuffer buffer = ByteBuffer.allocate(needed);
+	    buffer.put(readBuffer);
+	    readBuffer = buffer;
+	} else if (!readBuffer.hasRemaining()
+		&& (Peer.BUFFER_SIZE < readBuffer.capacity()))
+	    readBuffer = ByteBuffer.allocate(Peer.BUFFER_SIZE);
+	else
+	    readBuffer.compact();
+    }
+
+    /**
+     * Send bytes.<br />
+     * Bytes not sent immediately are kept, and sent when the
+     * {@link SocketChannel} is writable.
+     * 
+     * @param bytes
+     *            The bytes.
+     * @param offset
+     *            The offset of bytes.
+     * @param length
+     *            The number of bytes.
+     * @throws IOException
+     *             Error writing, or too many bytes waiting to be sent.
+     */
+    void send(final byte[] bytes, final int offset, final int length)
+	    throws IOException {
+	if (writeBuffer == null) {
+	    ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+	    channel.write(buffer);
+	    if (!buffer.hasRemaining())
+		return;
+	    checkPending(buffer.remaining());
+	    writeBuffer = ByteBuffer.allocate(Math.max(Peer.BUFFER_SIZE,
+		    buffer.remaining()));
+	    writeBuffer.put(buffer);
+	    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+	    return;
+	}
+	checkPending(writeBuffer.position() + length);
+	if (writeBuffer.remaining() < length) {
+	    int capacity = Math.min(writeBuffer.capacity() * 2, maxPending);
+	    ByteBuffer buffer = ByteBuffer.allocate(Math.max(capacity,
+		    writeBuffer.position() + length));
+	    writeBuffer.flip();
+	    buffer.put(writeBuffer);
+	    writeBuffer = buffer;
+	}
+	writeBuffer.put(bytes, offset, length);
+    }
+
+    /**
+     * Sets the {@link SelectionKey}.
+     * 
+     * @param key
+     *            The {@link SelectionKey}.
+     */
+    void setKey(final SelectionKey key) {
+	this.key = key;
+    }
+
+}
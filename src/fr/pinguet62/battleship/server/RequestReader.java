@@ -0,0 +1,242 @@
+package fr.pinguet62.battleship.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import fr.pinguet62.battleship.socket.SocketException;
+import fr.pinguet62.battleship.socket.codec.MessageDecoder;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+
+/**
+ * Thread of the {@link GameServer} reading the first frame of each new
+ * connection: the {@link ParametersDto} requested by the guest.<br />
+ * Valid requests are passed to the {@link Lobby}, other connections are
+ * closed, as the connections not sending their request before
+ * {@link #REQUEST_TIMEOUT}.<br />
+ * The guests waiting into the {@link Lobby} stay registered until paired: a
+ * disconnected one is removed from the {@link Lobby}.
+ */
+final class RequestReader implements Runnable {
+
+    /** A connection sending its request. */
+    private static final class Request {
+
+	/** The buffer of received bytes, in write mode. */
+	private final ByteBuffer buffer = ByteBuffer
+		.allocate(RequestReader.MAX_REQUEST_LENGTH + 5);
+
+	/** The deadline of the request, from {@link System#nanoTime()}. */
+	private final long deadline = System.nanoTime()
+		+ TimeUnit.MILLISECONDS.toNanos(RequestReader.REQUEST_TIMEOUT);
+
+    }
+
+    /** The maximal length of a request. */
+    static final int MAX_REQUEST_LENGTH = 256;
+
+    /** The maximal duration to send the request, in milliseconds. */
+    static final int REQUEST_TIMEOUT = 10000;
+
+    /** The delay between 2 checks of {@link #REQUEST_TIMEOUT}. */
+    private static final int TIMEOUT_CHECK_DELAY = 1000;
+
+    /**
+     * Close a {@link SocketChannel}.
+     * 
+     * @param channel
+     *            The {@link SocketChannel}.
+     */
+    private static void close(final SocketChannel channel) {
+	try {
+	    channel.close();
+	} catch (IOException e) {
+	}
+    }
+
+    /** The {@link MessageDecoder}. */
+    private final MessageDecoder decoder = new MessageDecoder();
+
+    /** The {@link Lobby}. */
+    private final Lobby lobby;
+
+    /** The {@link SocketChannel}s to register. */
+    private final Queue<SocketChannel> registrations;
+
+    /** The {@link Selector}. */
+    private final Selector selector;
+
+    /** The {@link Thread}. */
+    private final Thread thread;
+
+    /**
+     * Constructor.
+     * 
+     * @param lobby
+     *            The {@link Lobby}.
+     * @throws SocketException
+     *             Error opening the {@link Selector}.
+     */
+    RequestReader(final Lobby lobby) {
+	this.lobby = lobby;
+	registrations = new ConcurrentLinkedQueue<>();
+	try {
+	    selector = Selector.open();
+	} catch (IOException exception) {
+	    throw new SocketException("Error opening selector.", exception);
+	}
+	thread = new Thread(this, "Game server request reader");
+	thread.setDaemon(true);
+    }
+
+    /**
+     * Close the connections whose request is not received before its
+     * deadline.
+     * 
+     * @param now
+     *            The timestamp, from {@link System#nanoTime()}.
+     */
+    private void expire(final long now) {
+	for (SelectionKey key : selector.keys()) {
+	    Request request = (Request) key.attachment();
+	    if ((request != null) && (0 <= (now - request.deadline)))
+		RequestReader.close((SocketChannel) key.channel());
+	}
+    }
+
+    /**
+     * Read the available bytes of a connection, and pass the request to the
+     * {@link Lobby} once complete.<br />
+     * The connection of a waiting guest is readable only at the end of
+     * stream, nothing being expected before pairing: the guest is removed
+     * from the {@link Lobby}.
+     * 
+     * @param key
+     *            The {@link SelectionKey} of the connection.
+     * @throws IOException
+     *             Error reading, end of stream, or invalid request.
+     */
+    private void read(final SelectionKey key) throws IOException {
+	SocketChannel channel = (SocketChannel) key.channel();
+	Request request = (Request) key.attachment();
+	if (request == null) {
+	    lobby.remove(channel);
+	    throw new EOFException();
+	}
+	ByteBuffer buffer = request.buffer;
+	if (channel.read(buffer) < 0)
+	    throw new EOFException();
+
+	buffer.flip();
+	int size = MessageDecoder.getFrameSize(buffer,
+		RequestReader.MAX_REQUEST_LENGTH);
+	if ((size < 0) || (buffer.remaining() < size)) {
+	    buffer.compact();
+	    return;
+	}
+	if (buffer.remaining() != size)
+	    throw new StreamCorruptedException("Unexpected bytes after request.");
+	Object message = decoder.decodeFrame(buffer.array(), 0, size);
+	if (!(message instanceof ParametersDto)
+		|| !Lobby.isValid((ParametersDto) message))
+	    throw new StreamCorruptedException("Invalid request.");
+
+	// Waiting: watched until paired
+	key.attach(null);
+	SocketChannel opponent = lobby.enqueue(channel,
+		(ParametersDto) message);
+	if (opponent == null)
+	    return;
+	// Paired: read by the ServerLoop
+	key.cancel();
+	SelectionKey opponentKey = opponent.keyFor(selector);
+	if (opponentKey != null)
+	    opponentKey.cancel();
+    }
+
+    /**
+     * Add a new connection.<br />
+     * Thread-safe.
+     * 
+     * @param channel
+     *            The {@link SocketChannel}.
+     */
+    void register(final SocketChannel channel) {
+	registrations.add(channel);
+	selector.wakeup();
+    }
+
+    /** Read requests until {@link #stop()}. */
+    @Override
+    public void run() {
+	long nextCheck = System.nanoTime();
+	try {
+	    while (!Thread.currentThread().isInterrupted()) {
+		selector.select(RequestReader.TIMEOUT_CHECK_DELAY);
+
+		// New connections
+		SocketChannel channel;
+		while ((channel = registrations.poll()) != null)
+		    try {
+			channel.configureBlocking(false);
+			channel.register(selector, SelectionKey.OP_READ,
+				new Request());
+		    } catch (IOException exception) {
+			RequestReader.close(channel);
+		    }
+
+		// Requests
+		for (Iterator<SelectionKey> it = selector.selectedKeys()
+			.iterator(); it.hasNext();) {
+		    SelectionKey key = it.next();
+		    it.remove();
+		    try {
+			if (key.isValid() && key.isReadable())
+			    read(key);
+		    } catch (IOException exception) {
+			RequestReader.close((SocketChannel) key.channel());
+		    }
+		}
+
+		// Timeouts
+		long now = System.nanoTime();
+		if (0 <= (now - nextCheck)) {
+		    expire(now);
+		    nextCheck = now
+			    + TimeUnit.MILLISECONDS
+				    .toNanos(RequestReader.TIMEOUT_CHECK_DELAY);
+		}
+	    }
+	} catch (IOException | ClosedSelectorException exception) {
+	    // Stopped
+	} finally {
+	    for (SelectionKey key : selector.keys())
+		RequestReader.close((SocketChannel) key.channel());
+	    try {
+		selector.close();
+	    } catch (IOException e) {
+	    }
+	}
+    }
+
+    /** Start the {@link Thread}. */
+    void start() {
+	thread.start();
+    }
+
+    /** Stop the {@link Thread}, and close the pending connections. */
+    void stop() {
+	thread.interrupt();
+	selector.wakeup();
+    }
+
+}
@@ -0,0 +1,189 @@
+package fr.pinguet62.battleship.server;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import fr.pinguet62.battleship.socket.Heartbeat;
+import fr.pinguet62.battleship.socket.SocketException;
+import fr.pinguet62.battleship.socket.codec.MessageDecoder;
+import fr.pinguet62.battleship.socket.codec.MessageEncoder;
+import fr.pinguet62.battleship.socket.dto.PingDto;
+
+/**
+ * Thread of the {@link GameServer} multiplexing the {@link Peer}s of many
+ * {@link GameSession}s with a {@link Selector}.<br />
+ * Both {@link Peer}s of a {@link GameSession} belong to the same loop: a
+ * {@link GameSession} is never accessed by 2 threads.<br />
+ * The loop also ticks the {@link Heartbeat}s of its {@link Peer}s: without
+ * other {@link Thread} nor timer, whatever the number of {@link Peer}s.
+ */
+final class ServerLoop implements Runnable {
+
+    /** The {@link MessageDecoder}, shared by all {@link Peer}s. */
+    private final MessageDecoder decoder = new MessageDecoder();
+
+    /** The interval between 2 ticks of {@link Heartbeat}s, in nanoseconds. */
+    private final long heartbeatInterval = TimeUnit.MILLISECONDS
+	    .toNanos(Heartbeat.getConfiguredInterval());
+
+    /** The {@link GameSession}s to register. */
+    private final Queue<GameSession> registrations;
+
+    /** The {@link Selector}. */
+    private final Selector selector;
+
+    /** The {@link Thread}. */
+    private final Thread thread;
+
+    /**
+     * Constructor.
+     * 
+     * @param index
+     *            The index of the loop, for the name of the {@link Thread}.
+     * @throws SocketException
+     *             Error opening the {@link Selector}.
+     */
+    ServerLoop(final int index) {
+	registrations = new ConcurrentLinkedQueue<>();
+	try {
+	    selector = Selector.open();
+	} catch (IOException exception) {
+	    throw new SocketException("Error opening selector.", exception);
+	}
+	thread = new Thread(this, "Game server loop " + index);
+	thread.setDaemon(true);
+    }
+
+    /**
+     * Add a {@link GameSession} to this loop.<br />
+     * Thread-safe.
+     * 
+     * @param session
+     *            The {@link GameSession}.
+     */
+    void register(final GameSession session) {
+	registrations.add(session);
+	selector.wakeup();
+    }
+
+    /**
+     * Register a {@link Peer} into the {@link Selector}.
+     * 
+     * @param peer
+     *            The {@link Peer}.
+     * @throws IOException
+     *             Error configuring the channel.
+     */
+    private void register(final Peer peer) throws IOException {
+	peer.getChannel().configureBlocking(false);
+	peer.getChannel().socket().setTcpNoDelay(true);
+	peer.setKey(peer.getChannel().register(selector, SelectionKey.OP_READ,
+		peer));
+    }
+
+    /** Process events until {@link #stop()}. */
+    @Override
+    public void run() {
+	long nextTick = System.nanoTime() + heartbeatInterval;
+	try {
+	    while (!Thread.currentThread().isInterrupted()) {
+		long timeout = TimeUnit.NANOSECONDS.toMillis(nextTick
+			- System.nanoTime());
+		if (0 < timeout)
+		    selector.select(timeout);
+		else
+		    selector.selectNow();
+
+		// New sessions
+		GameSession session;
+		while ((session = registrations.poll()) != null)
+		    try {
+			register(session.getFirst());
+			register(session.getSecond());
+			session.start();
+		    } catch (IOException exception) {
+			session.close();
+		    }
+
+		// Events
+		for (Iterator<SelectionKey> it = selector.selectedKeys()
+			.iterator(); it.hasNext();) {
+		    SelectionKey key = it.next();
+		    it.remove();
+		    Peer peer = (Peer) key.attachment();
+		    try {
+			if (key.isValid() && key.isReadable())
+			    peer.read(decoder, peer.getSession()
+				    .getMaxFrameLength());
+			if (key.isValid() && key.isWritable())
+			    peer.flush();
+		    } catch (IOException exception) {
+			peer.getSession().close();
+		    }
+		}
+
+		// Heartbeats
+		long now = System.nanoTime();
+		if (0 <= (now - nextTick)) {
+		    tick(now);
+		    nextTick = now + heartbeatInterval;
+		}
+	    }
+	} catch (IOException | ClosedSelectorException exception) {
+	    // Stopped
+	} finally {
+	    for (SelectionKey key : selector.keys())
+		((Peer) key.attachment()).getSession().close();
+	    try {
+		selector.close();
+	    } catch (IOException e) {
+	    }
+	}
+    }
+
+    /** Start the {@link Thread}. */
+    void start() {
+	thread.start();
+    }
+
+    /** Stop the {@link Thread} and close all {@link GameSession}s. */
+    void stop() {
+	thread.interrupt();
+	selector.wakeup();
+    }
+
+    /**
+     * Tick the {@link Heartbeat}s: send the same {@link PingDto} to all
+     * {@link Peer}s, and close the {@link GameSession}s of dead ones.
+     * 
+     * @param now
+     *            The timestamp, from {@link System#nanoTime()}.
+     */
+    private void tick(final long now) {
+	byte[] ping = null;
+	for (SelectionKey key : selector.keys()) {
+	    if (!key.isValid())
+		continue;
+	    Peer peer = (Peer) key.attachment();
+	    try {
+		if (!peer.getHeartbeat().tick(now)) {
+		    peer.getSession().close();
+		    continue;
+		}
+		if (ping == null)
+		    ping = new MessageEncoder().encode(new PingDto(now))
+			    .getFrame();
+		peer.send(ping, 0, ping.length);
+	    } catch (IOException exception) {
+		peer.getSession().close();
+	    }
+	}
+    }
+
+}
@@ -3,14 +3,28 @@ package fr.pinguet62.battleship.socket;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 import fr.pinguet62.battleship.model.Game;
+import fr.pinguet62.battleship.model.GameEventLoop;
 import fr.pinguet62.battleship.socket.dto.AttackDto;
+import fr.pinguet62.battleship.socket.dto.BoatPosition;
 import fr.pinguet62.battleship.socket.dto.ParametersDto;
 import fr.pinguet62.battleship.socket.dto.PositionsDto;
+import fr.pinguet62.battleship.socket.dto.SalvoDto;
 
-/** Interacts with {@link AbstractThreadSocket}. */
+/**
+ * Interacts with {@link AbstractThreadSocket}.<br />
+ * Received messages are published into the {@link GameEventLoop} of the
+ * {@link Game}: listeners are executed by the loop, never by the
+ * {@link AbstractThreadSocket}.
+ */
 public abstract class AbstractSocketManager {
 
     /** The {@link Game}. */
@@ -22,8 +36,14 @@ public abstract class AbstractSocketManager {
     /** The port of {@link Socket}. */
     protected int port = -1;
 
-    /** The {@link AbstractThreadSocket}. */
-    protected AbstractThreadSocket threadSocket;
+    /**
+     * The {@link AbstractThreadSocket}.<br />
+     * Set before it starts; read by the {@link GameEventLoop} and Swing.
+     */
+    protected volatile AbstractThreadSocket threadSocket;
+
+    /** The {@link ThreadMode} of the {@link AbstractThreadSocket}. */
+    protected ThreadMode threadMode = ThreadMode.getDefault();
 
     /**
      * Constructor.
@@ -35,6 +55,26 @@ public abstract class AbstractSocketManager {
 	this.game = game;
     }
 
+    /**
+     * Publish messages received by the {@link AbstractThreadSocket} into the
+     * {@link GameEventLoop}.<br />
+     * Must be called before starting the {@link AbstractThreadSocket}.
+     * 
+     * @param threadSocket
+     *            The {@link AbstractThreadSocket}.
+     */
+    protected void bind(final AbstractThreadSocket threadSocket) {
+	GameEventLoop eventLoop = game.getEventLoop();
+	threadSocket.setOnAttackReceivedListener((attackDto) -> eventLoop
+		.publish(AttackDto.class, attackDto));
+	threadSocket.setOnParametersReceivedListener((parametersDto) -> eventLoop
+		.publish(ParametersDto.class, parametersDto));
+	threadSocket.setOnPositionsReceivedListener((positionsDto) -> eventLoop
+		.publish(PositionsDto.class, positionsDto));
+	threadSocket.setOnSalvoReceivedListener((salvoDto) -> eventLoop
+		.publish(SalvoDto.class, salvoDto));
+    }
+
     /**
      * Method of connection to host or waiting for guest.
      * 
@@ -44,13 +84,103 @@ public abstract class AbstractSocketManager {
     public abstract void connect(final Runnable method);
 
     /**
-     * Send message to client.
+     * Gets the {@link Heartbeat} of the connection, with its round-trip
+     * times.
+     * 
+     * @return The {@link Heartbeat}.
+     */
+    public Heartbeat getHeartbeat() {
+	return threadSocket.heartbeat;
+    }
+
+    /**
+     * Gets the number of received messages waiting for the listeners.<br />
+     * A growing number means the listeners don't consume fast enough.
+     * 
+     * @return The number of messages.
+     */
+    public int getReceiveQueueDepth() {
+	return threadSocket.inboundQueue.size();
+    }
+
+    /**
+     * Gets the number of messages waiting to be sent.<br />
+     * A growing number means the peer doesn't read fast enough.
+     * 
+     * @return The number of messages.
+     */
+    public int getSendQueueDepth() {
+	return threadSocket.outboundQueue.size();
+    }
+
+    /**
+     * Send message to client, without blocking.
      * 
      * @param object
      *            The message to send.
+     * @return The {@link CompletableFuture} completed when the message is
+     *         sent, or failed if the send queue is full or the connection
+     *         closed.
      */
-    public void send(final Object object) {
-	threadSocket.send(object);
+    public CompletableFuture<Void> send(final Object object) {
+	return threadSocket.send(object);
+    }
+
+    /**
+     * Send {@link BoatPosition}s in chunks of at most
+     * {@link PositionsDto#CHUNK_SIZE}, without blocking.<br />
+     * Each chunk is sent when the previous one is written: whatever the
+     * number of {@link BoatPosition}s, one chunk is waiting to be sent.
+     * 
+     * @param boatPositions
+     *            The {@link BoatPosition}s, not modified until sent.
+     * @param onProgress
+     *            The {@link IntConsumer} of the number of sent
+     *            {@link BoatPosition}s, after each chunk; <code>null</code>
+     *            if none.
+     * @return The {@link CompletableFuture} completed when all chunks are
+     *         sent, or failed if a chunk is not.
+     */
+    public CompletableFuture<Void> sendPositions(
+	    final Collection<BoatPosition> boatPositions,
+	    final IntConsumer onProgress) {
+	CompletableFuture<Void> result = new CompletableFuture<>();
+	sendPositions(boatPositions.iterator(), 0, onProgress, result);
+	return result;
+    }
+
+    /**
+     * Send the next chunk of {@link BoatPosition}s, then the following ones.
+     * 
+     * @param iterator
+     *            The {@link Iterator} of {@link BoatPosition}s not sent.
+     * @param sent
+     *            The number of sent {@link BoatPosition}s.
+     * @param onProgress
+     *            The {@link IntConsumer} of the number of sent
+     *            {@link BoatPosition}s, <code>null</code> if none.
+     * @param result
+     *            The {@link CompletableFuture} of all chunks.
+     */
+    private void sendPositions(final Iterator<BoatPosition> iterator,
+	    final int sent, final IntConsumer onProgress,
+	    final CompletableFuture<Void> result) {
+	List<BoatPosition> chunk = new ArrayList<>();
+	while (iterator.hasNext() && (chunk.size() < PositionsDto.CHUNK_SIZE))
+	    chunk.add(iterator.next());
+	int total = sent + chunk.size();
+	send(new PositionsDto(chunk)).whenComplete((nothing, exception) -> {
+	    if (exception != null) {
+		result.completeExceptionally(exception);
+		return;
+	    }
+	    if (onProgress != null)
+		onProgress.accept(total);
+	    if (iterator.hasNext())
+		sendPositions(iterator, total, onProgress, result);
+	    else
+		result.complete(null);
+	});
     }
 
     /**
@@ -65,38 +195,56 @@ public abstract class AbstractSocketManager {
     }
 
     /**
-     * Sets the {@link Consumer} to execute after {@link AttackDto} reception.
+     * Sets the {@link Consumer} to execute after {@link AttackDto}
+     * reception.<br />
+     * Executed by the {@link GameEventLoop}.
      * 
      * @param onAttackReceived
      *            The {@link Consumer} to execute.
      */
     public void setOnAttackReceivedListener(
 	    final Consumer<AttackDto> onAttackReceived) {
-	threadSocket.setOnAttackReceivedListener(onAttackReceived);
+	game.getEventLoop().setListener(AttackDto.class, onAttackReceived);
     }
 
     /**
      * Sets the {@link Consumer} to execute after {@link ParametersDto}
-     * reception.
+     * reception.<br />
+     * Executed by the {@link GameEventLoop}.
      * 
      * @param onParametersReceived
      *            The {@link Consumer} to execute.
      */
     public void setOnParametersReceivedListener(
 	    final Consumer<ParametersDto> onParametersReceived) {
-	threadSocket.setOnParametersReceivedListener(onParametersReceived);
+	game.getEventLoop().setListener(ParametersDto.class,
+		onParametersReceived);
     }
 
     /**
      * Sets the {@link Consumer} to execute after {@link PositionsDto}
-     * reception.
+     * reception.<br />
+     * Executed by the {@link GameEventLoop}.
      * 
      * @param onPositionsReceived
      *            The {@link Consumer} to execute.
      */
     public void setOnPositionsReceivedListener(
 	    final Consumer<PositionsDto> onPositionsReceived) {
-	threadSocket.setOnPositionsReceivedListener(onPositionsReceived);
+	game.getEventLoop().setListener(PositionsDto.class, onPositionsReceived);
+    }
+
+    /**
+     * Sets the {@link Consumer} to execute after {@link SalvoDto}
+     * reception.<br />
+     * Executed by the {@link GameEventLoop}.
+     * 
+     * @param onSalvoReceived
+     *            The {@link Consumer} to execute.
+     */
+    public void setOnSalvoReceivedListener(
+	    final Consumer<SalvoDto> onSalvoReceived) {
+	game.getEventLoop().setListener(SalvoDto.class, onSalvoReceived);
     }
 
     /**
@@ -109,9 +257,25 @@ public abstract class AbstractSocketManager {
 	this.port = port;
     }
 
-    /** Close the {@link Socket} or {@link ServerSocket} and stop the thread. */
+    /**
+     * Sets the {@link ThreadMode} of the {@link AbstractThreadSocket}, by
+     * default from {@link ThreadMode#getDefault()}.<br />
+     * Must be called before {@link #connect(Runnable)}.
+     * 
+     * @param threadMode
+     *            The {@link ThreadMode}.
+     */
+    public void setThreadMode(final ThreadMode threadMode) {
+	this.threadMode = threadMode;
+    }
+
+    /**
+     * Close the {@link Socket} or {@link ServerSocket} and stop the thread and
+     * the {@link GameEventLoop}.
+     */
     public void stop() {
 	threadSocket.closeAndStop();
+	game.getEventLoop().stop();
     }
 
 }
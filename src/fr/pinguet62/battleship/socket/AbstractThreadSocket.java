@@ -1,18 +1,66 @@
 package fr.pinguet62.battleship.socket;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
+import java.io.StreamCorruptedException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 import java.util.function.Consumer;
 
+import fr.pinguet62.battleship.socket.codec.MessageType;
 import fr.pinguet62.battleship.socket.dto.AttackDto;
 import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.battleship.socket.dto.PingDto;
+import fr.pinguet62.battleship.socket.dto.PongDto;
 import fr.pinguet62.battleship.socket.dto.PositionsDto;
+import fr.pinguet62.battleship.socket.dto.ResumeDto;
+import fr.pinguet62.battleship.socket.dto.SalvoDto;
+import fr.pinguet62.battleship.socket.dto.SessionDto;
 
-/** {@link Thread} who listen and send messages to {@link Socket}. */
-public abstract class AbstractThreadSocket extends Thread {
+/**
+ * Listen and send messages to {@link Socket}.<br />
+ * The blocking read loop runs into a {@link Thread} of a {@link ThreadMode}: it
+ * passes each message to the {@link MessageDispatcher}, in any order.
+ * <p>
+ * If the host issued a {@link SessionDto token}, a dropped connection is
+ * resumed: both players exchange a {@link ResumeDto} on a new connection, then
+ * send again only the messages not received by the opponent. A connection
+ * closed by the opponent, or an invalid message, is not resumed.
+ * <p>
+ * From the first received message, or from {@link #startHeartbeat()}, a
+ * {@link Heartbeat} pings the opponent: a dead opponent closes the
+ * connection, resumed like a dropped one.
+ */
+public abstract class AbstractThreadSocket implements Runnable {
+
+    /** The maximal duration of one attempt to resume, in milliseconds. */
+    public static final int RESUME_ATTEMPT_TIMEOUT = 5000;
+
+    /** The delay between two attempts to resume, in milliseconds. */
+    public static final int RESUME_RETRY_DELAY = 500;
+
+    /** The maximal duration to resume a session, in milliseconds. */
+    public static final int RESUME_TIMEOUT = 30000;
+
+    /** If closed by {@link #closeAndStop()}. */
+    protected volatile boolean closed;
+
+    /** The {@link MessageDispatcher} of received messages. */
+    protected final MessageDispatcher dispatcher = new MessageDispatcher();
+
+    /** The {@link Heartbeat} of the connection. */
+    protected final Heartbeat heartbeat = Heartbeat.newInstance();
+
+    /** The periodic tick of {@link #heartbeat}, <code>null</code> before. */
+    private volatile ScheduledFuture<?> heartbeatTask;
+
+    /**
+     * The {@link InboundQueue} of received game messages, between the read
+     * loop and the listeners.
+     */
+    protected final InboundQueue inboundQueue = InboundQueue.newInstance();
 
     /** The {@link Consumer} to execute after {@link AttackDto} reception. */
     protected Consumer<AttackDto> onAttackReceivedListener;
@@ -23,35 +71,212 @@ public abstract class AbstractThreadSocket extends Thread {
     /** The {@link Consumer} to execute after {@link PositionsDto} reception. */
     protected Consumer<PositionsDto> onPositionsReceivedListener;
 
-    /** The {@link Socket}. */
-    protected Socket socket;
+    /** The {@link Consumer} to execute after {@link SalvoDto} reception. */
+    protected Consumer<SalvoDto> onSalvoReceivedListener;
+
+    /** The {@link Connection}, <code>null</code> before connection. */
+    protected volatile Connection connection;
+
+    /**
+     * The {@link OutboundQueue} of messages to send, resumed if the session
+     * has a {@link #token}.
+     */
+    protected final OutboundQueue outboundQueue = new OutboundQueue(
+	    OutboundQueue.DEFAULT_CAPACITY, () -> this.token != 0);
+
+    /**
+     * The number of messages received since the start of the session.<br />
+     * Confined to the read loop.
+     */
+    protected long received;
+
+    /** The {@link ThreadMode} of threads. */
+    protected ThreadMode threadMode = ThreadMode.PLATFORM;
+
+    /** The token of the session, 0 if the session cannot be resumed. */
+    protected volatile long token;
+
+    /**
+     * Constructor.<br />
+     * Register the handlers of heartbeats, {@link PositionsDto},
+     * {@link AttackDto} and {@link SalvoDto}.
+     */
+    protected AbstractThreadSocket() {
+	// Enqueued: the read loop never writes, even to a stalled opponent
+	dispatcher.register(PingDto.class, (pingDto) -> outboundQueue
+		.offer(new PongDto(pingDto.getTimestamp())));
+	dispatcher.register(PongDto.class,
+		(pongDto) -> heartbeat.onPong(pongDto, System.nanoTime()));
+	dispatcher.register(PositionsDto.class, (positionsDto) -> {
+	    System.out.println(String.format("Boat positions received: %d",
+		    positionsDto.getBoatPositions().size()));
+	    if (onPositionsReceivedListener != null)
+		onPositionsReceivedListener.accept(positionsDto);
+	});
+	dispatcher.register(AttackDto.class, (attackDto) -> {
+	    System.out.println("Attack received: " + attackDto);
+	    if (onAttackReceivedListener != null)
+		onAttackReceivedListener.accept(attackDto);
+	});
+	dispatcher.register(SalvoDto.class, (salvoDto) -> {
+	    System.out.println("Salvo received: " + salvoDto);
+	    if (onSalvoReceivedListener != null)
+		onSalvoReceivedListener.accept(salvoDto);
+	});
+    }
 
     /** Close the {@link Socket} or {@link ServerSocket} and stop the thread. */
     public void closeAndStop() {
-	try {
-	    socket.close();
-	} catch (IOException e) {
+	closed = true;
+	stop();
+	if (connection != null)
+	    connection.close();
+    }
+
+    /**
+     * Receive and dispatch messages, until {@link #closeAndStop()}.<br />
+     * Control messages (heartbeats, session) are dispatched by the read loop,
+     * never delayed by the listeners; game messages are dispatched through
+     * the {@link InboundQueue}.
+     * 
+     * @throws IOException
+     *             Error reading the {@link Socket} and session not resumed,
+     *             invalid frame, unexpected type of message, or
+     *             {@link InboundQueue} full with
+     *             {@link InboundQueue.OverflowPolicy#DISCONNECT}.
+     */
+    protected void listen() throws IOException {
+	while (!closed) {
+	    Object message = receive();
+	    Consumer<Object> handler;
+	    try {
+		handler = dispatcher.getHandler(message);
+	    } catch (StreamCorruptedException exception) {
+		stop();
+		throw exception;
+	    }
+	    if (!MessageType.of(message).isReplayable())
+		handler.accept(message);
+	    else if (!inboundQueue.offer(() -> handler.accept(message))) {
+		System.out.println(String.format(
+			"Inbound queue full: %d messages, disconnecting.",
+			inboundQueue.size()));
+		closeAndStop();
+		throw new StreamCorruptedException("Inbound queue full.");
+	    }
+	}
+    }
+
+    /**
+     * Receive the next message, resuming the session if the connection is
+     * lost.
+     * 
+     * @return The message.
+     * @throws IOException
+     *             Error reading the {@link Socket} and session not resumed, or
+     *             invalid frame.
+     */
+    private Object receive() throws IOException {
+	while (true) {
+	    Object message;
+	    try {
+		message = connection.receive(Object.class);
+	    } catch (IOException exception) {
+		if (resume(exception))
+		    continue;
+		stop();
+		throw exception;
+	    }
+	    heartbeat.onReceived(System.nanoTime());
+	    startHeartbeat();
+	    if (MessageType.of(message).isReplayable())
+		received++;
+	    return message;
+	}
+    }
+
+    /**
+     * Open a new {@link Connection} to the opponent, and exchange the
+     * {@link ResumeDto}s.<br />
+     * On success, the new {@link Connection} is set as {@link #connection}.
+     * 
+     * @param timeout
+     *            The maximal duration, in milliseconds.
+     * @return The {@link ResumeDto} of the opponent.
+     * @throws IOException
+     *             Error connecting, timeout, or invalid token.
+     */
+    protected abstract ResumeDto reconnect(int timeout) throws IOException;
+
+    /**
+     * Resume the session after a lost connection, retrying until
+     * {@link #RESUME_TIMEOUT}.
+     * 
+     * @param cause
+     *            The error of the lost connection.
+     * @return <code>true</code> if resumed, <code>false</code> if it cannot
+     *         be.
+     */
+    private boolean resume(final IOException cause) {
+	if (closed || (token == 0) || (cause instanceof EOFException)
+		|| (cause instanceof StreamCorruptedException))
+	    return false;
+	System.out.println("Connection lost, resuming session... ("
+		+ cause.getMessage() + ")");
+	connection.reset();
+	long deadline = System.currentTimeMillis()
+		+ AbstractThreadSocket.RESUME_TIMEOUT;
+	while (!closed) {
+	    int timeout = (int) Math.min(
+		    AbstractThreadSocket.RESUME_ATTEMPT_TIMEOUT, deadline
+			    - System.currentTimeMillis());
+	    if (timeout <= 0)
+		break;
+	    try {
+		ResumeDto resumeDto = reconnect(timeout);
+		heartbeat.onReceived(System.nanoTime());
+		int replayed = outboundQueue.resume(connection,
+			resumeDto.getReceived());
+		System.out.println(String.format(
+			"Session resumed: %d messages sent again.", replayed));
+		return true;
+	    } catch (IllegalStateException exception) {
+		System.out.println("Cannot resume session: "
+			+ exception.getMessage());
+		return false;
+	    } catch (IOException | SocketException exception) {
+		System.out.println("Error resuming session: "
+			+ exception.getMessage());
+	    }
+	    try {
+		Thread.sleep(AbstractThreadSocket.RESUME_RETRY_DELAY);
+	    } catch (InterruptedException exception) {
+		return false;
+	    }
 	}
+	return false;
     }
 
     /**
-     * Send message to client.
+     * Enqueue a message to send to client, without blocking.
      * 
      * @param object
      *            The message to send.
+     * @return The {@link CompletableFuture} completed when the message is
+     *         sent.
+     * @see OutboundQueue#offer(Object)
      */
-    public void send(final Object object) {
-	try {
-	    System.out.println(String.format("Sending [%s] to guest... (%s)",
-		    object.getClass().getSimpleName(), object));
-	    OutputStream outputStream = socket.getOutputStream();
-	    ObjectOutputStream objectOutputStream = new ObjectOutputStream(
-		    outputStream);
-	    objectOutputStream.writeObject(object);
-	    objectOutputStream.flush();
-	} catch (IOException exception) {
-	    throw new SocketException("Error serializing message.", exception);
-	}
+    public CompletableFuture<Void> send(final Object object) {
+	System.out.println(String.format("Sending [%s] to guest... (%s)",
+		object.getClass().getSimpleName(), object));
+	CompletableFuture<Void> future = outboundQueue.offer(object);
+	future.whenComplete((result, exception) -> {
+	    if (exception != null)
+		System.out.println(String.format("Error sending [%s]: %s",
+			object.getClass().getSimpleName(),
+			exception.getMessage()));
+	});
+	return future;
     }
 
     /**
@@ -89,4 +314,80 @@ public abstract class AbstractThreadSocket extends Thread {
 	onPositionsReceivedListener = onPositionsReceived;
     }
 
+    /**
+     * Sets the {@link Consumer} to execute after {@link SalvoDto} reception.
+     * 
+     * @param onSalvoReceived
+     *            The {@link Consumer} to execute.
+     */
+    public void setOnSalvoReceivedListener(
+	    final Consumer<SalvoDto> onSalvoReceived) {
+	onSalvoReceivedListener = onSalvoReceived;
+    }
+
+    /**
+     * Stop the {@link InboundQueue}, the {@link OutboundQueue} and the
+     * {@link Heartbeat}.
+     */
+    private void stop() {
+	inboundQueue.close();
+	outboundQueue.close();
+	ScheduledFuture<?> task = heartbeatTask;
+	if (task != null)
+	    task.cancel(false);
+    }
+
+    /**
+     * Start the read loop into a new {@link Thread}, the dispatcher of the
+     * {@link InboundQueue}, and the writer of the {@link OutboundQueue} if
+     * already connected.
+     * 
+     * @param threadMode
+     *            The {@link ThreadMode} of threads.
+     */
+    public void start(final ThreadMode threadMode) {
+	this.threadMode = threadMode;
+	inboundQueue.start(threadMode);
+	if (connection != null)
+	    outboundQueue.start(connection, threadMode);
+	threadMode.newThread(this, getClass().getSimpleName()).start();
+    }
+
+    /**
+     * Start the {@link Heartbeat}, if not started: the opponent must answer
+     * from now on, even if it never sent any message.<br />
+     * Called by the read loop.
+     */
+    protected void startHeartbeat() {
+	if (heartbeatTask != null)
+	    return;
+	heartbeat.onReceived(System.nanoTime());
+	heartbeatTask = Heartbeat.schedule(this::tick, heartbeat.getInterval());
+    }
+
+    /**
+     * Tick of the {@link Heartbeat}: send a {@link PingDto}, or close the
+     * {@link #connection} of a dead opponent.<br />
+     * Executed by the scheduler shared by all connections: never blocked by
+     * a writer stalled on the {@link #connection}, the {@link PingDto} is
+     * enqueued into the {@link OutboundQueue}.
+     */
+    private void tick() {
+	if (closed) {
+	    heartbeatTask.cancel(false);
+	    return;
+	}
+	if (connection.isClosed())
+	    return; // Resuming
+	long now = System.nanoTime();
+	if (heartbeat.tick(now))
+	    outboundQueue.offer(new PingDto(now));
+	else {
+	    System.out.println(String.format(
+		    "Opponent dead: %d heartbeats missed.",
+		    heartbeat.getMissed()));
+	    connection.reset();
+	}
+    }
+
 }
@@ -0,0 +1,80 @@
+package fr.pinguet62.battleship.socket;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Session with the opponent, sending and receiving messages.<br />
+ * Several messages can be {@link #write(Object) written} then
+ * {@link #flush() flushed} together.
+ * 
+ * @see SocketConnection
+ * @see LoopbackConnection
+ */
+public interface Connection extends Closeable {
+
+    /** Close the session: the opponent sees the end of stream. */
+    @Override
+    void close();
+
+    /**
+     * Send the written messages.<br />
+     * Thread-safe.
+     * 
+     * @throws SocketException
+     *             Error writing.
+     */
+    void flush();
+
+    /**
+     * Tests if closed.
+     * 
+     * @return Result.
+     */
+    boolean isClosed();
+
+    /**
+     * Receive the next message.<br />
+     * Block until a message is received.
+     * 
+     * @param <T>
+     *            The type of message.
+     * @param type
+     *            The expected type of message.
+     * @return The message.
+     * @throws IOException
+     *             Error reading, end of stream, invalid frame, or unexpected
+     *             type of message.
+     */
+    <T> T receive(Class<T> type) throws IOException;
+
+    /**
+     * Abort the session: close it with a reset, not a normal end of
+     * stream.<br />
+     * The opponent sees a lost connection, not a connection closed on purpose.
+     */
+    void reset();
+
+    /**
+     * Send a message.<br />
+     * Thread-safe.
+     * 
+     * @param message
+     *            The message.
+     * @throws SocketException
+     *             Error writing.
+     */
+    void send(Object message);
+
+    /**
+     * Write a message, without sending it before {@link #flush()}.<br />
+     * Thread-safe.
+     * 
+     * @param message
+     *            The message.
+     * @throws SocketException
+     *             Error writing.
+     */
+    void write(Object message);
+
+}
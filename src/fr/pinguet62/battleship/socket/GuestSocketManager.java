@@ -3,10 +3,17 @@ package fr.pinguet62.battleship.socket;
 import java.net.Socket;
 
 import fr.pinguet62.battleship.model.Game;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
 
 /** Class who interacts with host {@link Socket}. */
 public final class GuestSocketManager extends AbstractSocketManager {
 
+    /**
+     * The {@link ParametersDto} requested to a lobby server,
+     * <code>null</code> if connecting to a host.
+     */
+    private final ParametersDto request;
+
     /**
      * Constructor.
      * 
@@ -14,13 +21,30 @@ public final class GuestSocketManager extends AbstractSocketManager {
      *            The {@link Game}.
      */
     public GuestSocketManager(final Game game) {
+	this(game, null);
+    }
+
+    /**
+     * Constructor of a guest of a lobby server: the requested
+     * {@link ParametersDto} is the first message sent after connection.
+     * 
+     * @param game
+     *            The {@link Game}.
+     * @param request
+     *            The requested {@link ParametersDto}, <code>null</code> if
+     *            connecting to a host.
+     * @see fr.pinguet62.battleship.server.GameServer#GameServer(int)
+     */
+    public GuestSocketManager(final Game game, final ParametersDto request) {
 	super(game);
+	this.request = request;
     }
 
     /**
      * Create the {@link GuestThreadSocket} and {@link Socket} to connect host.<br />
-     * If successful connection, execute the method, otherwise throws
-     * {@link SocketException}.<br />
+     * If successful connection, enqueue the requested {@link ParametersDto}
+     * if any, first message of the {@link OutboundQueue}, and execute the
+     * method, otherwise throws {@link SocketException}.<br />
      * Start {@link GuestThreadSocket}.
      * 
      * @param onConnected
@@ -30,9 +54,14 @@ public final class GuestSocketManager extends AbstractSocketManager {
      */
     @Override
     public void connect(final Runnable onConnected) {
-	threadSocket = new GuestThreadSocket(inetAddress, port);
+	GuestThreadSocket guestThreadSocket = new GuestThreadSocket(
+		inetAddress, port);
+	bind(guestThreadSocket);
+	threadSocket = guestThreadSocket;
+	if (request != null)
+	    guestThreadSocket.send(request);
 	onConnected.run();
-	threadSocket.start();
+	guestThreadSocket.start(threadMode);
     }
 
 }
\ No newline at end of file
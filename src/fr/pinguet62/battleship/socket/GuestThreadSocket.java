@@ -1,19 +1,25 @@
 package fr.pinguet62.battleship.socket;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 
-import fr.pinguet62.battleship.socket.dto.AttackDto;
 import fr.pinguet62.battleship.socket.dto.ParametersDto;
-import fr.pinguet62.battleship.socket.dto.PositionsDto;
+import fr.pinguet62.battleship.socket.dto.ResumeDto;
+import fr.pinguet62.battleship.socket.dto.SessionDto;
 
-/** {@link Thread} who listen the client {@link Socket}. */
+/** {@link AbstractThreadSocket} who listen the client {@link Socket}. */
 final class GuestThreadSocket extends AbstractThreadSocket {
 
+    /** The server {@link InetAddress}. */
+    private final InetAddress inetAddress;
+
+    /** The port of {@link Socket}. */
+    private final int port;
+
     /**
      * The client {@link Socket}.
      * 
@@ -25,8 +31,19 @@ final class GuestThreadSocket extends AbstractThreadSocket {
      *             Error during {@link ServerSocket} creation.
      */
     public GuestThreadSocket(final InetAddress inetAddress, final int port) {
+	dispatcher.register(SessionDto.class, (sessionDto) -> {
+	    System.out.println("Session token received.");
+	    token = sessionDto.getToken();
+	});
+	dispatcher.register(ParametersDto.class, (parametersDto) -> {
+	    System.out.println("Parameters received: " + parametersDto);
+	    if (onParametersReceivedListener != null)
+		onParametersReceivedListener.accept(parametersDto);
+	});
+	this.inetAddress = inetAddress;
+	this.port = port;
 	try {
-	    socket = new Socket(inetAddress, port);
+	    connection = new SocketConnection(new Socket(inetAddress, port));
 	    System.out.println("Connected to host.");
 	} catch (IOException exception) {
 	    throw new SocketException("Error during server socket creation.",
@@ -34,63 +51,35 @@ final class GuestThreadSocket extends AbstractThreadSocket {
 	}
     }
 
+    @Override
+    protected ResumeDto reconnect(final int timeout) throws IOException {
+	Socket socket = new Socket();
+	try {
+	    socket.connect(new InetSocketAddress(inetAddress, port), timeout);
+	    socket.setSoTimeout(timeout);
+	    Connection reconnected = new SocketConnection(socket);
+	    reconnected.send(new ResumeDto(token, received));
+	    ResumeDto resumeDto = reconnected.receive(ResumeDto.class);
+	    if (resumeDto.getToken() != token)
+		throw new StreamCorruptedException("Invalid session token.");
+	    socket.setSoTimeout(0);
+	    connection = reconnected;
+	    return resumeDto;
+	} catch (IOException | SocketException exception) {
+	    socket.close();
+	    throw exception;
+	}
+    }
+
     /** Listening host. */
     @Override
     public void run() {
-	InputStream inputStream = null;
 	try {
-	    inputStream = socket.getInputStream();
+	    listen();
 	} catch (IOException exception) {
-	    throw new SocketException("Error during getting input stream.",
+	    throw new SocketException("Error receiving message from host.",
 		    exception);
 	}
-
-	// Parameters
-	try {
-	    System.out.println("Waiting host parameters...");
-	    ObjectInputStream objectInputStream = new ObjectInputStream(
-		    inputStream);
-	    ParametersDto parametersDto = (ParametersDto) objectInputStream
-		    .readObject();
-	    System.out.println("Parameters received: " + parametersDto);
-	    if (onParametersReceivedListener != null)
-		onParametersReceivedListener.accept(parametersDto);
-	} catch (IOException | ClassNotFoundException exception) {
-	    throw new SocketException(
-		    "Error receiving boat positions from guest.", exception);
-	}
-
-	// Positions
-	try {
-	    System.out.println("Waiting host positions...");
-	    ObjectInputStream objectInputStream = new ObjectInputStream(
-		    inputStream);
-	    PositionsDto positionsDto = (PositionsDto) objectInputStream
-		    .readObject();
-	    System.out.println("Boat positions received: " + positionsDto);
-	    if (onPositionsReceivedListener != null)
-		onPositionsReceivedListener.accept(positionsDto);
-	} catch (IOException | ClassNotFoundException exception) {
-	    throw new SocketException(
-		    "Error receiving boat positions from guest.", exception);
-	}
-
-	while (true) {
-	    // Attack
-	    try {
-		System.out.println("Waiting host attack...");
-		ObjectInputStream objectInputStream = new ObjectInputStream(
-			inputStream);
-		AttackDto attackDto = (AttackDto) objectInputStream
-			.readObject();
-		System.out.println("Attack received: " + attackDto);
-		if (onAttackReceivedListener != null)
-		    onAttackReceivedListener.accept(attackDto);
-	    } catch (IOException | ClassNotFoundException exception) {
-		throw new SocketException("Error receiving attack from guest.",
-			exception);
-	    }
-	}
     }
 
 }
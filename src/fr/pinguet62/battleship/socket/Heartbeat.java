@@ -0,0 +1,215 @@
+package fr.pinguet62.battleship.socket;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import fr.pinguet62.battleship.socket.dto.PingDto;
+import fr.pinguet62.battleship.socket.dto.PongDto;
+import fr.pinguet62.utils.LatencyHistogram;
+
+/**
+ * Liveness and round-trip time of a connection.
+ * <p>
+ * At each tick, a {@link PingDto} is sent; the opponent answers by a
+ * {@link PongDto}, whose round-trip time is recorded into a
+ * {@link LatencyHistogram}, in microseconds. A heartbeat is missed if no
+ * message at all is received until the next tick: after
+ * {@link #getMaxMissed()} missed heartbeats, the opponent is dead.
+ * <p>
+ * The interval and the number of missed heartbeats are read from the system
+ * properties {@value #INTERVAL_PROPERTY} (in milliseconds) and
+ * {@value #MAX_MISSED_PROPERTY}. Ticks of all {@link AbstractThreadSocket}s
+ * run into one shared {@link Thread}; the {@link fr.pinguet62.battleship.server
+ * game server} ticks into its own loops.
+ */
+public final class Heartbeat {
+
+    /** The default interval between 2 ticks, in milliseconds. */
+    public static final int DEFAULT_INTERVAL = 5000;
+
+    /** The default number of missed heartbeats of a dead opponent. */
+    public static final int DEFAULT_MAX_MISSED = 3;
+
+    /** The system property of the interval. */
+    public static final String INTERVAL_PROPERTY = "battleship.heartbeat"
+	    + ".interval";
+
+    /** The system property of the number of missed heartbeats. */
+    public static final String MAX_MISSED_PROPERTY = "battleship.heartbeat"
+	    + ".maxMissed";
+
+    /** The shared {@link ScheduledExecutorService}, created on first use. */
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Gets the interval configured by the system property
+     * {@value #INTERVAL_PROPERTY}.
+     * 
+     * @return The interval, in milliseconds.
+     */
+    public static int getConfiguredInterval() {
+	return Integer.getInteger(Heartbeat.INTERVAL_PROPERTY,
+		Heartbeat.DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Create a {@link Heartbeat} configured by the system properties.
+     * 
+     * @return The {@link Heartbeat}.
+     */
+    public static Heartbeat newInstance() {
+	return new Heartbeat(Heartbeat.getConfiguredInterval(),
+		Integer.getInteger(Heartbeat.MAX_MISSED_PROPERTY,
+			Heartbeat.DEFAULT_MAX_MISSED));
+    }
+
+    /**
+     * Execute ticks periodically into the shared {@link Thread}.
+     * 
+     * @param tick
+     *            The tick, must not block.
+     * @param interval
+     *            The interval, in milliseconds.
+     * @return The {@link ScheduledFuture}, to cancel.
+     */
+    static synchronized ScheduledFuture<?> schedule(final Runnable tick,
+	    final int interval) {
+	if (Heartbeat.scheduler == null) {
+	    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+		    1, (runnable) -> {
+			Thread thread = new Thread(runnable, "Heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		    });
+	    executor.setRemoveOnCancelPolicy(true);
+	    Heartbeat.scheduler = executor;
+	}
+	return Heartbeat.scheduler.scheduleAtFixedRate(tick, interval,
+		interval, TimeUnit.MILLISECONDS);
+    }
+
+    /** The interval between 2 ticks, in milliseconds. */
+    private final int interval;
+
+    /** The timestamp of the last received message. */
+    private volatile long lastReceived;
+
+    /** The timestamp of the last tick. */
+    private long lastTick;
+
+    /** The round-trip times, in microseconds. */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /** The number of missed heartbeats of a dead opponent. */
+    private final int maxMissed;
+
+    /** The number of consecutive missed heartbeats. */
+    private int missed;
+
+    /** If a {@link PingDto} was sent at the last tick. */
+    private boolean pinged;
+
+    /**
+     * Constructor.
+     * 
+     * @param interval
+     *            The interval between 2 ticks, in milliseconds.
+     * @param maxMissed
+     *            The number of missed heartbeats of a dead opponent.
+     * @throws IllegalArgumentException
+     *             Interval or number not positive.
+     */
+    public Heartbeat(final int interval, final int maxMissed) {
+	if ((interval <= 0) || (maxMissed <= 0))
+	    throw new IllegalArgumentException(
+		    "Interval and number of missed heartbeats must be positive.");
+	this.interval = interval;
+	this.maxMissed = maxMissed;
+	lastTick = System.nanoTime();
+	lastReceived = lastTick;
+    }
+
+    /**
+     * Gets the interval between 2 ticks.
+     * 
+     * @return The interval, in milliseconds.
+     */
+    public int getInterval() {
+	return interval;
+    }
+
+    /**
+     * Gets the round-trip times.
+     * 
+     * @return The {@link LatencyHistogram}, in microseconds.
+     */
+    public LatencyHistogram getLatencies() {
+	return latencies;
+    }
+
+    /**
+     * Gets the number of missed heartbeats of a dead opponent.
+     * 
+     * @return The number.
+     */
+    public int getMaxMissed() {
+	return maxMissed;
+    }
+
+    /**
+     * Gets the number of consecutive missed heartbeats.
+     * 
+     * @return The number.
+     */
+    public synchronized int getMissed() {
+	return missed;
+    }
+
+    /**
+     * Record the answer to a {@link PingDto}.
+     * 
+     * @param pongDto
+     *            The {@link PongDto}.
+     * @param now
+     *            The timestamp of reception, from {@link System#nanoTime()}.
+     * @return The round-trip time, in microseconds.
+     */
+    public long onPong(final PongDto pongDto, final long now) {
+	long latency = Math.max(0,
+		TimeUnit.NANOSECONDS.toMicros(now - pongDto.getTimestamp()));
+	latencies.record(latency);
+	return latency;
+    }
+
+    /**
+     * Record the reception of a message.
+     * 
+     * @param now
+     *            The timestamp of reception, from {@link System#nanoTime()}.
+     */
+    public void onReceived(final long now) {
+	lastReceived = now;
+    }
+
+    /**
+     * Count the missed heartbeat since the last tick.
+     * 
+     * @param now
+     *            The timestamp of the tick, from {@link System#nanoTime()}.
+     * @return <code>true</code> if alive: a {@link PingDto} with this
+     *         timestamp must be sent; <code>false</code> if the opponent is
+     *         dead.
+     */
+    public synchronized boolean tick(final long now) {
+	if (pinged && ((lastReceived - lastTick) <= 0))
+	    missed++;
+	else
+	    missed = 0;
+	lastTick = now;
+	pinged = missed < maxMissed;
+	return pinged;
+    }
+
+}
@@ -21,7 +21,8 @@ public final class HostSocketManager extends AbstractSocketManager {
     /**
      * Create the {@link HostThreadSocket} and {@link ServerSocket}.<br />
      * Start the {@link HostThreadSocket}.<br />
-     * When guest connected, execute the method.
+     * When guest connected, execute the method by the
+     * {@link fr.pinguet62.battleship.model.GameEventLoop}.
      * 
      * @param onConnected
      *            The {@link Runnable} to execute after guest connection.
@@ -30,9 +31,11 @@ public final class HostSocketManager extends AbstractSocketManager {
     public void connect(final Runnable onConnected) {
 	HostThreadSocket hostThreadSocket = new HostThreadSocket(inetAddress,
 		port);
-	hostThreadSocket.setOnConnectedListener(onConnected);
-	hostThreadSocket.start();
+	hostThreadSocket.setOnConnectedListener(() -> game.getEventLoop()
+		.submit(onConnected));
+	bind(hostThreadSocket);
 	threadSocket = hostThreadSocket;
+	hostThreadSocket.start(threadMode);
     }
 
 }
\ No newline at end of file
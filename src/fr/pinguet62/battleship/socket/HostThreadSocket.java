@@ -1,21 +1,59 @@
 package fr.pinguet62.battleship.socket;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
-import fr.pinguet62.battleship.socket.dto.AttackDto;
-import fr.pinguet62.battleship.socket.dto.PositionsDto;
+import fr.pinguet62.battleship.socket.dto.ResumeDto;
+import fr.pinguet62.battleship.socket.dto.SessionDto;
 
-/** {@link Thread} who listen the client {@link Socket}. */
+/**
+ * {@link AbstractThreadSocket} who listen the client {@link Socket}.<br />
+ * After the guest connection, the {@link ServerSocket} keeps accepting the
+ * reconnections of the guest, to resume the session.
+ */
 final class HostThreadSocket extends AbstractThreadSocket {
 
+    /** A new {@link Connection} of the guest, and its {@link ResumeDto}. */
+    private static final class Reconnection {
+
+	/** The {@link Connection}. */
+	private final Connection connection;
+
+	/** The {@link ResumeDto} of the guest. */
+	private final ResumeDto resumeDto;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param connection
+	 *            The {@link Connection}.
+	 * @param resumeDto
+	 *            The {@link ResumeDto} of the guest.
+	 */
+	private Reconnection(final Connection connection,
+		final ResumeDto resumeDto) {
+	    this.connection = connection;
+	    this.resumeDto = resumeDto;
+	}
+
+    }
+
+    /** The {@link SecureRandom} of session tokens. */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     /** The {@link Runnable} to execute after guest connection. */
     private Runnable onConnectedListener;
 
+    /** The reconnections of the guest, with a valid token. */
+    private final BlockingQueue<Reconnection> reconnections = new LinkedBlockingQueue<>();
+
     /** The server {@link Socket}. */
     private final ServerSocket socketServeur;
 
@@ -38,13 +76,82 @@ final class HostThreadSocket extends AbstractThreadSocket {
 	}
     }
 
+    /**
+     * Accept the reconnections of guest, until {@link #closeAndStop()}.<br />
+     * A reconnection with the token of the session closes the current
+     * {@link Connection}, to wake up the read loop; others are closed.
+     */
+    private void acceptReconnections() {
+	while (!closed)
+	    try {
+		Socket socket = socketServeur.accept();
+		socket.setSoTimeout(AbstractThreadSocket.RESUME_ATTEMPT_TIMEOUT);
+		Connection reconnected = new SocketConnection(socket);
+		try {
+		    ResumeDto resumeDto = reconnected.receive(ResumeDto.class);
+		    if (resumeDto.getToken() != token)
+			throw new StreamCorruptedException(
+				"Invalid session token.");
+		    socket.setSoTimeout(0);
+		    reconnections.add(new Reconnection(reconnected, resumeDto));
+		    connection.reset();
+		} catch (IOException exception) {
+		    System.out.println("Reconnection refused: "
+			    + exception.getMessage());
+		    reconnected.close();
+		}
+	    } catch (IOException | SocketException exception) {
+		if (!closed)
+		    System.out.println("Error accepting reconnection: "
+			    + exception.getMessage());
+	    }
+    }
+
+    @Override
+    public void closeAndStop() {
+	super.closeAndStop();
+	try {
+	    socketServeur.close();
+	} catch (IOException exception) {
+	}
+    }
+
+    @Override
+    protected ResumeDto reconnect(final int timeout) throws IOException {
+	Reconnection reconnection;
+	try {
+	    reconnection = reconnections.poll(timeout, TimeUnit.MILLISECONDS);
+	} catch (InterruptedException exception) {
+	    throw new IOException("Interrupted.", exception);
+	}
+	if (reconnection == null)
+	    throw new IOException("No reconnection of guest.");
+	try {
+	    reconnection.connection.send(new ResumeDto(token, received));
+	} catch (SocketException exception) {
+	    reconnection.connection.close();
+	    throw exception;
+	}
+	connection = reconnection.connection;
+	return reconnection.resumeDto;
+    }
+
     /** Listening guest. */
     @Override
     public void run() {
 	// Guest connection
 	try {
 	    System.out.println("Waiting guest connection...");
-	    socket = socketServeur.accept();
+	    connection = new SocketConnection(socketServeur.accept());
+	    long newToken;
+	    do
+		newToken = HostThreadSocket.RANDOM.nextLong();
+	    while (newToken == 0);
+	    token = newToken;
+	    connection.send(new SessionDto(token));
+	    outboundQueue.start(connection, threadMode);
+	    threadMode.newThread(this::acceptReconnections,
+		    "HostThreadSocket reconnections").start();
 	    System.out.println("Guest connected.");
 	    if (onConnectedListener != null)
 		onConnectedListener.run();
@@ -53,45 +160,13 @@ final class HostThreadSocket extends AbstractThreadSocket {
 		    exception);
 	}
 
-	InputStream inputStream = null;
+	// Messages
 	try {
-	    inputStream = socket.getInputStream();
+	    listen();
 	} catch (IOException exception) {
-	    throw new SocketException("Error during getting input stream.",
+	    throw new SocketException("Error receiving message from guest.",
 		    exception);
 	}
-
-	// Position
-	try {
-	    System.out.println("Waiting guest positions...");
-	    ObjectInputStream objectInputStream = new ObjectInputStream(
-		    inputStream);
-	    PositionsDto positionsDto = (PositionsDto) objectInputStream
-		    .readObject();
-	    System.out.println("Boat positions received: " + positionsDto);
-	    if (onPositionsReceivedListener != null)
-		onPositionsReceivedListener.accept(positionsDto);
-	} catch (IOException | ClassNotFoundException exception) {
-	    throw new SocketException(
-		    "Error receiving boat positions from guest.", exception);
-	}
-
-	while (true) {
-	    // Attack
-	    try {
-		System.out.println("Waiting guest attack...");
-		ObjectInputStream objectInputStream = new ObjectInputStream(
-			inputStream);
-		AttackDto attackDto = (AttackDto) objectInputStream
-			.readObject();
-		System.out.println("Attack received: " + attackDto);
-		if (onAttackReceivedListener != null)
-		    onAttackReceivedListener.accept(attackDto);
-	    } catch (IOException | ClassNotFoundException exception) {
-		throw new SocketException("Error receiving attack from guest.",
-			exception);
-	    }
-	}
     }
 
     /**
@@ -0,0 +1,192 @@
+package fr.pinguet62.battleship.socket;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of received messages, between the read loop and the
+ * listeners: the read loop enqueues the dispatch of each message, executed in
+ * order by a dispatcher {@link Thread}. A slow listener doesn't stall the read
+ * loop until the queue is full; then the {@link OverflowPolicy} applies.
+ * <p>
+ * The capacity and the {@link OverflowPolicy} are read from the system
+ * properties {@value #CAPACITY_PROPERTY} and {@value #OVERFLOW_PROPERTY}.
+ */
+public final class InboundQueue implements Runnable {
+
+    /**
+     * What the read loop does when the queue is full.<br />
+     * No policy drops a message: only game messages are queued, already
+     * counted as received, so a dropped one could never be replayed.
+     */
+    public static enum OverflowPolicy {
+
+	/**
+	 * Wait for the listeners: the read loop stops reading, the opponent is
+	 * slowed down by the flow control of the {@link Connection}.
+	 */
+	BLOCK,
+	/** Close the {@link Connection} of the flooding opponent. */
+	DISCONNECT;
+
+    }
+
+    /** The system property of the capacity. */
+    public static final String CAPACITY_PROPERTY = "battleship.inbound"
+	    + ".capacity";
+
+    /** The default capacity. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** The system property of the {@link OverflowPolicy}. */
+    public static final String OVERFLOW_PROPERTY = "battleship.inbound"
+	    + ".overflow";
+
+    /** The delay between 2 checks of {@link #close()}, in milliseconds. */
+    private static final long POLL_DELAY = 100;
+
+    /**
+     * Create an {@link InboundQueue} configured by the system properties:
+     * {@link #DEFAULT_CAPACITY} and {@link OverflowPolicy#BLOCK} by default.
+     * 
+     * @return The {@link InboundQueue}.
+     * @throws IllegalArgumentException
+     *             Unknown {@link OverflowPolicy}, or capacity not positive.
+     */
+    public static InboundQueue newInstance() {
+	String overflow = System.getProperty(InboundQueue.OVERFLOW_PROPERTY);
+	return new InboundQueue(Integer.getInteger(
+		InboundQueue.CAPACITY_PROPERTY, InboundQueue.DEFAULT_CAPACITY),
+		overflow == null ? OverflowPolicy.BLOCK : OverflowPolicy
+			.valueOf(overflow.trim().toUpperCase()));
+    }
+
+    /** If closed. */
+    private volatile boolean closed;
+
+    /** The dispatcher {@link Thread}, <code>null</code> before start. */
+    private Thread dispatcher;
+
+    /** The {@link OverflowPolicy}. */
+    private final OverflowPolicy overflowPolicy;
+
+    /** The dispatches of received messages. */
+    private final BlockingQueue<Runnable> queue;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The maximal number of pending messages.
+     * @param overflowPolicy
+     *            The {@link OverflowPolicy}.
+     * @throws IllegalArgumentException
+     *             Capacity not positive.
+     */
+    public InboundQueue(final int capacity,
+	    final OverflowPolicy overflowPolicy) {
+	queue = new ArrayBlockingQueue<>(capacity);
+	this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Stop the dispatcher {@link Thread}, after the pending messages: no more
+     * message is enqueued.
+     */
+    public void close() {
+	closed = true;
+    }
+
+    /**
+     * Gets the {@link OverflowPolicy}.
+     * 
+     * @return The {@link OverflowPolicy}.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+	return overflowPolicy;
+    }
+
+    /**
+     * Enqueue the dispatch of a received message, applying the
+     * {@link OverflowPolicy} if the queue is full.<br />
+     * Read loop only.
+     * 
+     * @param dispatch
+     *            The dispatch of the message.
+     * @return <code>false</code> if the opponent must be disconnected.
+     * @throws InterruptedIOException
+     *             Interrupted while blocked.
+     */
+    public boolean offer(final Runnable dispatch)
+	    throws InterruptedIOException {
+	if (closed || queue.offer(dispatch))
+	    return true;
+	switch (overflowPolicy) {
+	case BLOCK:
+	    try {
+		while (!closed
+			&& !queue.offer(dispatch, InboundQueue.POLL_DELAY,
+				TimeUnit.MILLISECONDS))
+		    ;
+	    } catch (InterruptedException exception) {
+		throw new InterruptedIOException();
+	    }
+	    return true;
+	default:
+	    return false;
+	}
+    }
+
+    /**
+     * Execute the dispatches, in order, until {@link #close()} and no pending
+     * message.
+     */
+    @Override
+    public void run() {
+	while (true) {
+	    Runnable dispatch;
+	    try {
+		dispatch = queue.poll(InboundQueue.POLL_DELAY,
+			TimeUnit.MILLISECONDS);
+	    } catch (InterruptedException exception) {
+		return;
+	    }
+	    if (dispatch == null) {
+		if (closed)
+		    return;
+		continue;
+	    }
+	    try {
+		dispatch.run();
+	    } catch (RuntimeException exception) {
+		System.out.println("Error dispatching message: "
+			+ exception.getMessage());
+	    }
+	}
+    }
+
+    /**
+     * Gets the number of pending messages.
+     * 
+     * @return The number.
+     */
+    public int size() {
+	return queue.size();
+    }
+
+    /**
+     * Start the dispatcher {@link Thread}.
+     * 
+     * @param threadMode
+     *            The {@link ThreadMode} of the dispatcher {@link Thread}.
+     */
+    public synchronized void start(final ThreadMode threadMode) {
+	if (closed || (dispatcher != null))
+	    return;
+	dispatcher = threadMode.newThread(this, "InboundQueue");
+	dispatcher.start();
+    }
+
+}
@@ -0,0 +1,166 @@
+package fr.pinguet62.battleship.socket;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import fr.pinguet62.battleship.socket.codec.MessageDecoder;
+import fr.pinguet62.battleship.socket.codec.MessageEncoder;
+
+/**
+ * In-process {@link Connection}: each end of a {@link #pair(boolean) pair}
+ * puts messages into the queue of the other one.<br />
+ * Without codec, messages are passed by reference: no serialization, no
+ * kernel. With codec, each message is encoded by a {@link MessageEncoder} and
+ * decoded by a {@link MessageDecoder}, to measure the cost of the protocol
+ * without the network.
+ */
+public final class LoopbackConnection implements Connection {
+
+    /** The marker of the end of stream. */
+    private static final Object END = new Object();
+
+    /** The marker of a reset by the opponent. */
+    private static final Object RESET = new Object();
+
+    /**
+     * Create 2 connected ends.
+     * 
+     * @param encoded
+     *            If messages are encoded and decoded.
+     * @return The 2 {@link LoopbackConnection}s.
+     */
+    public static LoopbackConnection[] pair(final boolean encoded) {
+	LoopbackConnection first = new LoopbackConnection(encoded);
+	LoopbackConnection second = new LoopbackConnection(encoded);
+	first.opponent = second;
+	second.opponent = first;
+	return new LoopbackConnection[] { first, second };
+    }
+
+    /** If closed. */
+    private volatile boolean closed;
+
+    /** The {@link MessageDecoder}, <code>null</code> without codec. */
+    private final MessageDecoder decoder;
+
+    /** The {@link MessageEncoder}, <code>null</code> without codec. */
+    private final MessageEncoder encoder;
+
+    /** The received messages, or their encoded bytes. */
+    private final BlockingQueue<Object> inbound = new LinkedBlockingQueue<>();
+
+    /** The other end. */
+    private LoopbackConnection opponent;
+
+    /**
+     * Constructor.
+     * 
+     * @param encoded
+     *            If messages are encoded and decoded.
+     */
+    private LoopbackConnection(final boolean encoded) {
+	encoder = encoded ? new MessageEncoder() : null;
+	decoder = encoded ? new MessageDecoder() : null;
+    }
+
+    @Override
+    public void close() {
+	close(LoopbackConnection.END);
+    }
+
+    /**
+     * Close both ends.
+     * 
+     * @param marker
+     *            The marker received by the opponent.
+     */
+    private synchronized void close(final Object marker) {
+	if (closed)
+	    return;
+	closed = true;
+	inbound.add(LoopbackConnection.END);
+	opponent.inbound.add(marker);
+    }
+
+    @Override
+    public void flush() {
+	if (closed)
+	    throw new SocketException("Error sending message.", null);
+    }
+
+    @Override
+    public boolean isClosed() {
+	return closed;
+    }
+
+    /**
+     * Tests if messages are encoded and decoded.
+     * 
+     * @return Result.
+     */
+    public boolean isEncoded() {
+	return encoder != null;
+    }
+
+    @Override
+    public <T> T receive(final Class<T> type) throws IOException {
+	Object message;
+	try {
+	    message = inbound.take();
+	} catch (InterruptedException exception) {
+	    throw new InterruptedIOException();
+	}
+	if ((message == LoopbackConnection.END)
+		|| (message == LoopbackConnection.RESET)) {
+	    inbound.add(message);
+	    if (closed)
+		throw new IOException("Connection closed.");
+	    if (message == LoopbackConnection.RESET)
+		throw new IOException("Connection reset.");
+	    throw new EOFException();
+	}
+	if (decoder != null) {
+	    byte[] bytes = (byte[]) message;
+	    message = decoder.decode(bytes, 0, bytes.length);
+	}
+	if (!type.isInstance(message))
+	    throw new StreamCorruptedException(String.format(
+		    "Unexpected message [%s] instead of [%s].", message
+			    .getClass().getSimpleName(), type.getSimpleName()));
+	return type.cast(message);
+    }
+
+    @Override
+    public void reset() {
+	close(LoopbackConnection.RESET);
+    }
+
+    @Override
+    public void send(final Object message) {
+	write(message);
+    }
+
+    /**
+     * {@inheritDoc}<br />
+     * The message is immediately received by the opponent: {@link #flush()}
+     * does nothing.
+     */
+    @Override
+    public synchronized void write(final Object message) {
+	if (closed || opponent.closed)
+	    throw new SocketException("Error sending message.", null);
+	if (encoder == null)
+	    opponent.inbound.add(message);
+	else {
+	    encoder.encode(message);
+	    opponent.inbound.add(Arrays.copyOf(encoder.getBuffer(),
+		    encoder.getLength()));
+	}
+    }
+
+}
@@ -0,0 +1,88 @@
+package fr.pinguet62.battleship.socket;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import fr.pinguet62.battleship.model.Game;
+import fr.pinguet62.battleship.model.PlayerType;
+
+/**
+ * Class who interacts with an opponent into the same JVM, by a
+ * {@link LoopbackConnection}: no port, no socket.<br />
+ * Example:
+ * 
+ * <pre>
+ * List&lt;Function&lt;Game, AbstractSocketManager&gt;&gt; factories;
+ * factories = LoopbackSocketManager.factories(false);
+ * Game host = new Game(PlayerType.HOST, factories.get(0));
+ * Game guest = new Game(PlayerType.GUEST, factories.get(1));
+ * </pre>
+ */
+public final class LoopbackSocketManager extends AbstractSocketManager {
+
+    /**
+     * Create the factories of 2 {@link LoopbackSocketManager}s connected
+     * together.
+     * 
+     * @param encoded
+     *            If messages are encoded and decoded, see
+     *            {@link LoopbackConnection#pair(boolean)}.
+     * @return The factories of the host then the guest, for
+     *         {@link Game#Game(PlayerType, Function)}.
+     */
+    public static List<Function<Game, AbstractSocketManager>> factories(
+	    final boolean encoded) {
+	LoopbackConnection[] pair = LoopbackConnection.pair(encoded);
+	return Arrays.asList(LoopbackSocketManager.factory(pair[0]),
+		LoopbackSocketManager.factory(pair[1]));
+    }
+
+    /**
+     * Create the factory of a {@link LoopbackSocketManager}.
+     * 
+     * @param connection
+     *            The {@link LoopbackConnection}.
+     * @return The factory.
+     */
+    private static Function<Game, AbstractSocketManager> factory(
+	    final LoopbackConnection connection) {
+	return (game) -> new LoopbackSocketManager(game, connection);
+    }
+
+    /** The {@link LoopbackConnection}. */
+    private final LoopbackConnection connection;
+
+    /**
+     * Constructor.
+     * 
+     * @param game
+     *            The {@link Game}.
+     * @param connection
+     *            The {@link LoopbackConnection}.
+     */
+    public LoopbackSocketManager(final Game game,
+	    final LoopbackConnection connection) {
+	super(game);
+	this.connection = connection;
+    }
+
+    /**
+     * Create and start the {@link LoopbackThreadSocket}.<br />
+     * The opponent is already connected: the method is executed by the
+     * {@link fr.pinguet62.battleship.model.GameEventLoop}.
+     * 
+     * @param onConnected
+     *            The {@link Runnable} to execute after connection.
+     */
+    @Override
+    public void connect(final Runnable onConnected) {
+	LoopbackThreadSocket loopbackThreadSocket = new LoopbackThreadSocket(
+		connection);
+	bind(loopbackThreadSocket);
+	threadSocket = loopbackThreadSocket;
+	game.getEventLoop().submit(onConnected);
+	loopbackThreadSocket.start(threadMode);
+    }
+
+}
@@ -0,0 +1,45 @@
+package fr.pinguet62.battleship.socket;
+
+import java.io.IOException;
+
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.battleship.socket.dto.ResumeDto;
+
+/**
+ * {@link AbstractThreadSocket} over a {@link LoopbackConnection}.<br />
+ * Already connected: the session can't be resumed.
+ */
+final class LoopbackThreadSocket extends AbstractThreadSocket {
+
+    /**
+     * Constructor.
+     * 
+     * @param connection
+     *            The {@link LoopbackConnection}.
+     */
+    LoopbackThreadSocket(final LoopbackConnection connection) {
+	dispatcher.register(ParametersDto.class, (parametersDto) -> {
+	    System.out.println("Parameters received: " + parametersDto);
+	    if (onParametersReceivedListener != null)
+		onParametersReceivedListener.accept(parametersDto);
+	});
+	this.connection = connection;
+    }
+
+    @Override
+    protected ResumeDto reconnect(final int timeout) throws IOException {
+	throw new IOException("Loopback connection can't be resumed.");
+    }
+
+    /** Listening opponent. */
+    @Override
+    public void run() {
+	try {
+	    listen();
+	} catch (IOException exception) {
+	    throw new SocketException("Error receiving message from opponent.",
+		    exception);
+	}
+    }
+
+}
@@ -0,0 +1,291 @@
+package fr.pinguet62.battleship.socket;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+
+import fr.pinguet62.battleship.socket.codec.MessageDecoder;
+import fr.pinguet62.battleship.socket.codec.MessageEncoder;
+
+/**
+ * {@link Connection} between 2 processes of the same host, by a memory-mapped
+ * file: one {@link MappedRing} per direction.<br />
+ * Messages are encoded by a {@link MessageEncoder} into the ring of the
+ * writer, and decoded by a {@link MessageDecoder} from the ring of the
+ * reader: no system call per message.
+ * <p>
+ * Layout of the file: a header (magic number, guest attached), the ring from
+ * the host to the guest, then the ring from the guest to the host. The host
+ * {@link #create(int) creates} the file, the guest {@link #open(int) opens}
+ * it.
+ */
+public final class MappedConnection implements Connection {
+
+    /** The offset of the flag of the attached guest, into the header. */
+    private static final int ATTACHED = 8;
+
+    /** The capacity of each {@link MappedRing}, in bytes. */
+    public static final int CAPACITY = 1 << 20;
+
+    /** The size of the header of the file. */
+    private static final int HEADER_SIZE = 64;
+
+    /** The magic number of an initialized file. */
+    private static final long MAGIC = 0x4261747465526e67L;
+
+    /** The size of the file. */
+    private static final int SIZE = MappedConnection.HEADER_SIZE + 2
+	    * MappedRing.sizeOf(MappedConnection.CAPACITY);
+
+    /**
+     * Create the file of a port, and map it.<br />
+     * A previous file is replaced: the guest of a previous game keeps its own
+     * file.
+     * 
+     * @param port
+     *            The port.
+     * @return The {@link MappedConnection} of the host.
+     * @throws IOException
+     *             Error creating the file.
+     */
+    public static MappedConnection create(final int port) throws IOException {
+	File file = MappedConnection.getFile(port);
+	file.delete();
+	MappedByteBuffer buffer;
+	try (RandomAccessFile randomAccessFile = new RandomAccessFile(file,
+		"rw")) {
+	    randomAccessFile.setLength(MappedConnection.SIZE);
+	    buffer = randomAccessFile.getChannel().map(MapMode.READ_WRITE, 0,
+		    MappedConnection.SIZE);
+	}
+	buffer.order(ByteOrder.nativeOrder());
+	MappedConnection connection = new MappedConnection(buffer, true, file);
+	MappedRing.setRelease(buffer, 0, MappedConnection.MAGIC);
+	return connection;
+    }
+
+    /**
+     * Gets the file of a port, into the temporary directory.
+     * 
+     * @param port
+     *            The port.
+     * @return The {@link File}.
+     */
+    public static File getFile(final int port) {
+	return new File(System.getProperty("java.io.tmpdir"), "battleship-"
+		+ port + ".ring");
+    }
+
+    /**
+     * Open the file of a port, created by the host, and attach to it.
+     * 
+     * @param port
+     *            The port.
+     * @return The {@link MappedConnection} of the guest.
+     * @throws IOException
+     *             No file, invalid file, or host already attached to a guest.
+     */
+    public static MappedConnection open(final int port) throws IOException {
+	File file = MappedConnection.getFile(port);
+	if (!file.isFile())
+	    throw new FileNotFoundException("No host: " + file);
+	try (RandomAccessFile randomAccessFile = new RandomAccessFile(file,
+		"rw")) {
+	    FileChannel channel = randomAccessFile.getChannel();
+	    if (channel.size() != MappedConnection.SIZE)
+		throw new StreamCorruptedException("Invalid file: " + file);
+	    MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0,
+		    MappedConnection.SIZE);
+	    buffer.order(ByteOrder.nativeOrder());
+	    if (MappedRing.getAcquire(buffer, 0) != MappedConnection.MAGIC)
+		throw new StreamCorruptedException("Invalid file: " + file);
+	    FileLock lock = channel.lock(0, MappedConnection.HEADER_SIZE,
+		    false);
+	    try {
+		if (MappedRing.getAcquire(buffer, MappedConnection.ATTACHED) != 0)
+		    throw new IOException("Host already connected to a guest.");
+		MappedConnection connection = new MappedConnection(buffer,
+			false, null);
+		MappedRing.setRelease(buffer, MappedConnection.ATTACHED, 1);
+		return connection;
+	    } finally {
+		lock.release();
+	    }
+	}
+    }
+
+    /**
+     * Create the {@link MappedRing} of a direction.
+     * 
+     * @param buffer
+     *            The {@link MappedByteBuffer} of the file.
+     * @param index
+     *            The index of the direction: 0 from the host, 1 from the
+     *            guest.
+     * @param producer
+     *            If this side writes into the ring.
+     * @return The {@link MappedRing}.
+     */
+    private static MappedRing ring(final MappedByteBuffer buffer,
+	    final int index, final boolean producer) {
+	int size = MappedRing.sizeOf(MappedConnection.CAPACITY);
+	ByteBuffer slice = buffer.duplicate();
+	slice.position(MappedConnection.HEADER_SIZE + (index * size));
+	slice.limit(slice.position() + size);
+	return new MappedRing(slice.slice().order(ByteOrder.nativeOrder()),
+		MappedConnection.CAPACITY, producer);
+    }
+
+    /** The header of the file, and the rings. */
+    private final MappedByteBuffer buffer;
+
+    /** If closed. */
+    private volatile boolean closed;
+
+    /** The {@link MessageDecoder}. */
+    private final MessageDecoder decoder = new MessageDecoder();
+
+    /** The {@link MessageEncoder}. */
+    private final MessageEncoder encoder = new MessageEncoder();
+
+    /** The file, deleted on close; <code>null</code> for the guest. */
+    private final File file;
+
+    /** The bytes of the received frame. */
+    private final byte[] frame = new byte[MappedConnection.CAPACITY / 2];
+
+    /** The {@link MappedRing} of received messages. */
+    private final MappedRing inbound;
+
+    /** The {@link MappedRing} of sent messages. */
+    private final MappedRing outbound;
+
+    /**
+     * Constructor.
+     * 
+     * @param buffer
+     *            The {@link MappedByteBuffer} of the file.
+     * @param host
+     *            If this side is the host.
+     * @param file
+     *            The file to delete on close, <code>null</code> if none.
+     */
+    private MappedConnection(final MappedByteBuffer buffer,
+	    final boolean host, final File file) {
+	this.buffer = buffer;
+	this.file = file;
+	outbound = MappedConnection.ring(buffer, host ? 0 : 1, true);
+	inbound = MappedConnection.ring(buffer, host ? 1 : 0, false);
+    }
+
+    @Override
+    public void close() {
+	close(MappedRing.CLOSED_END);
+    }
+
+    /**
+     * Close the {@link MappedRing} of sent messages, and delete the file.
+     * 
+     * @param state
+     *            The closed state seen by the opponent.
+     */
+    private void close(final long state) {
+	if (closed)
+	    return;
+	closed = true;
+	synchronized (this) {
+	    outbound.setClosed(state);
+	}
+	if (file != null)
+	    file.delete();
+    }
+
+    @Override
+    public void flush() {
+	if (closed)
+	    throw new SocketException("Error sending message.", null);
+    }
+
+    /**
+     * Tests if a guest has opened the file.
+     * 
+     * @return Result.
+     */
+    public boolean isAttached() {
+	return MappedRing.getAcquire(buffer, MappedConnection.ATTACHED) != 0;
+    }
+
+    @Override
+    public boolean isClosed() {
+	return closed;
+    }
+
+    /**
+     * {@inheritDoc}<br />
+     * Single reader.
+     */
+    @Override
+    public <T> T receive(final Class<T> type) throws IOException {
+	int idle = 0;
+	int length;
+	while ((length = inbound.poll(frame)) < 0) {
+	    if (closed)
+		throw new IOException("Connection closed.");
+	    long state = inbound.getClosed();
+	    if ((state != 0) && inbound.isEmpty()) {
+		if (state == MappedRing.CLOSED_RESET)
+		    throw new IOException("Connection reset.");
+		throw new EOFException();
+	    }
+	    idle = MappedRing.idle(idle);
+	}
+	Object message = decoder.decode(frame, 0, length);
+	if (!type.isInstance(message))
+	    throw new StreamCorruptedException(String.format(
+		    "Unexpected message [%s] instead of [%s].", message
+			    .getClass().getSimpleName(), type.getSimpleName()));
+	return type.cast(message);
+    }
+
+    @Override
+    public void reset() {
+	close(MappedRing.CLOSED_RESET);
+    }
+
+    @Override
+    public void send(final Object message) {
+	write(message);
+    }
+
+    /**
+     * {@inheritDoc}<br />
+     * The message is immediately visible by the opponent: {@link #flush()}
+     * does nothing. If the ring is full, wait for the opponent to read.
+     */
+    @Override
+    public synchronized void write(final Object message) {
+	if (closed)
+	    throw new SocketException("Error sending message.", null);
+	encoder.encode(message);
+	int idle = 0;
+	try {
+	    while (!outbound.offer(encoder.getBuffer(), 0, encoder.getLength())) {
+		if (closed || (inbound.getClosed() != 0))
+		    throw new SocketException("Error sending message.", null);
+		idle = MappedRing.idle(idle);
+	    }
+	} catch (IllegalArgumentException exception) {
+	    throw new SocketException("Error sending message.", exception);
+	}
+    }
+
+}
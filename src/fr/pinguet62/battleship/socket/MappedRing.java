@@ -0,0 +1,396 @@
+package fr.pinguet62.battleship.socket;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-producer single-consumer ring buffer of frames, into a
+ * {@link ByteBuffer} shared by 2 processes (memory-mapped file).
+ * <p>
+ * Layout: the position of the producer (tail), the position of the consumer
+ * (head) and the closed state, each one into its own cache line; then the
+ * data. Positions only grow: the index into the data is the position modulo
+ * the capacity. A frame is its length (4 bytes) then its bytes, aligned on 8
+ * bytes; a frame never wraps: the end of the data is skipped with a padding
+ * marker.
+ * <p>
+ * The producer writes the frame, then publishes the tail with release
+ * semantics; the consumer reads the tail with acquire semantics: by
+ * <code>VarHandle</code> since Java 9, by <code>sun.misc.Unsafe</code> before
+ * (ordered put and volatile get). No system call per frame: a waiting side
+ * spins, yields, then parks for growing durations.
+ */
+final class MappedRing {
+
+    /** The size of a cache line. */
+    private static final int CACHE_LINE = 64;
+
+    /** The offset of the closed state. */
+    private static final int CLOSED = 2 * MappedRing.CACHE_LINE;
+
+    /** The closed state of a closed ring. */
+    static final long CLOSED_END = 1;
+
+    /** The closed state of a reset ring. */
+    static final long CLOSED_RESET = 2;
+
+    /** The offset of the position of the consumer. */
+    private static final int HEAD = MappedRing.CACHE_LINE;
+
+    /** The size of the header, before the data. */
+    static final int HEADER_SIZE = 3 * MappedRing.CACHE_LINE;
+
+    /** The maximal duration of a park, in nanoseconds. */
+    private static final long MAX_PARK = 1000000;
+
+    /** The length of a padding marker, skipping the end of the data. */
+    private static final int PADDING = -1;
+
+    /** The offset of the position of the producer. */
+    private static final int TAIL = 0;
+
+    /**
+     * The getter of the address of a direct {@link ByteBuffer}, before Java
+     * 9; <code>null</code> since.
+     */
+    private static final MethodHandle ADDRESS;
+
+    /**
+     * The invoker of <code>VarHandle.getAcquire</code> on the longs of a
+     * {@link ByteBuffer}, <code>null</code> before Java 9.
+     */
+    private static final MethodHandle GET_ACQUIRE;
+
+    /**
+     * The invoker of <code>sun.misc.Unsafe.getLongVolatile</code>, before
+     * Java 9; <code>null</code> since.
+     */
+    private static final MethodHandle GET_VOLATILE;
+
+    /**
+     * The <code>VarHandle</code> of the longs of a {@link ByteBuffer},
+     * <code>null</code> before Java 9.
+     */
+    private static final Object LONGS;
+
+    /**
+     * The invoker of <code>sun.misc.Unsafe.putOrderedLong</code>, before Java
+     * 9; <code>null</code> since.
+     */
+    private static final MethodHandle PUT_ORDERED;
+
+    /**
+     * The invoker of <code>VarHandle.setRelease</code> on the longs of a
+     * {@link ByteBuffer}, <code>null</code> before Java 9.
+     */
+    private static final MethodHandle SET_RELEASE;
+
+    static {
+	Object longs = null;
+	MethodHandle getAcquire = null;
+	MethodHandle setRelease = null;
+	try {
+	    longs = MethodHandles.class.getMethod("byteBufferViewVarHandle",
+		    Class.class, ByteOrder.class).invoke(null, long[].class,
+		    ByteOrder.nativeOrder());
+	    Class<?> accessMode = Class
+		    .forName("java.lang.invoke.VarHandle$AccessMode");
+	    Method invoker = MethodHandles.class.getMethod("varHandleInvoker",
+		    accessMode, MethodType.class);
+	    getAcquire = (MethodHandle) invoker.invoke(null, MappedRing
+		    .accessMode(accessMode, "GET_ACQUIRE"), MethodType
+		    .methodType(long.class, ByteBuffer.class, int.class));
+	    setRelease = (MethodHandle) invoker.invoke(null, MappedRing
+		    .accessMode(accessMode, "SET_RELEASE"), MethodType
+		    .methodType(void.class, ByteBuffer.class, int.class,
+			    long.class));
+	} catch (ReflectiveOperationException exception) {
+	    // Java < 9
+	    longs = null;
+	}
+	LONGS = longs;
+	GET_ACQUIRE = longs == null ? null : getAcquire;
+	SET_RELEASE = longs == null ? null : setRelease;
+
+	MethodHandle address = null;
+	MethodHandle getVolatile = null;
+	MethodHandle putOrdered = null;
+	if (longs == null)
+	    try {
+		Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+		Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+		theUnsafe.setAccessible(true);
+		Object unsafe = theUnsafe.get(null);
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		getVolatile = lookup.unreflect(
+			unsafeClass.getMethod("getLongVolatile", Object.class,
+				long.class)).bindTo(unsafe);
+		putOrdered = lookup.unreflect(
+			unsafeClass.getMethod("putOrderedLong", Object.class,
+				long.class, long.class)).bindTo(unsafe);
+		Field addressField = Buffer.class.getDeclaredField("address");
+		addressField.setAccessible(true);
+		address = lookup.unreflectGetter(addressField);
+	    } catch (ReflectiveOperationException
+		    | RuntimeException exception) {
+		throw new IllegalStateException("No ordered access to memory: "
+			+ "Java 9 required.", exception);
+	    }
+	ADDRESS = address;
+	GET_VOLATILE = getVolatile;
+	PUT_ORDERED = putOrdered;
+    }
+
+    /**
+     * Gets a constant of <code>VarHandle.AccessMode</code>.
+     * 
+     * @param accessMode
+     *            The class <code>VarHandle.AccessMode</code>.
+     * @param name
+     *            The name of the constant.
+     * @return The constant.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Object accessMode(final Class<?> accessMode,
+	    final String name) {
+	return Enum.valueOf((Class) accessMode, name);
+    }
+
+    /**
+     * Align a size on 8 bytes.
+     * 
+     * @param size
+     *            The size.
+     * @return The aligned size.
+     */
+    private static int align(final int size) {
+	return (size + 7) & ~7;
+    }
+
+    /**
+     * Read a long with acquire semantics.
+     * 
+     * @param buffer
+     *            The {@link ByteBuffer}, in native order.
+     * @param offset
+     *            The offset, aligned on 8 bytes.
+     * @return The long.
+     */
+    static long getAcquire(final ByteBuffer buffer, final int offset) {
+	try {
+	    if (MappedRing.GET_ACQUIRE == null)
+		return (long) MappedRing.GET_VOLATILE.invoke((Object) null,
+			(long) MappedRing.ADDRESS.invoke(buffer) + offset);
+	    return (long) MappedRing.GET_ACQUIRE.invoke(MappedRing.LONGS,
+		    buffer, offset);
+	} catch (Throwable throwable) {
+	    throw new IllegalStateException(throwable);
+	}
+    }
+
+    /**
+     * Wait while a condition is true: spin, yield, then park for growing
+     * durations.
+     * 
+     * @param idle
+     *            The number of previous calls without progress.
+     * @return The number of calls without progress, for the next call.
+     */
+    static int idle(final int idle) {
+	if (idle < 100)
+	    return idle + 1;
+	if (idle < 200) {
+	    Thread.yield();
+	    return idle + 1;
+	}
+	LockSupport.parkNanos(Math.min(MappedRing.MAX_PARK,
+		1000L << Math.min(10, idle - 200)));
+	return Math.min(idle + 1, 210);
+    }
+
+    /**
+     * Write a long with release semantics.
+     * 
+     * @param buffer
+     *            The {@link ByteBuffer}, in native order.
+     * @param offset
+     *            The offset, aligned on 8 bytes.
+     * @param value
+     *            The long.
+     */
+    static void setRelease(final ByteBuffer buffer, final int offset,
+	    final long value) {
+	try {
+	    if (MappedRing.SET_RELEASE == null) {
+		long address = (long) MappedRing.ADDRESS.invoke(buffer);
+		MappedRing.PUT_ORDERED.invoke((Object) null, address + offset,
+			value);
+		return;
+	    }
+	    MappedRing.SET_RELEASE.invoke(MappedRing.LONGS, buffer, offset,
+		    value);
+	} catch (Throwable throwable) {
+	    throw new IllegalStateException(throwable);
+	}
+    }
+
+    /**
+     * Gets the size of a ring.
+     * 
+     * @param capacity
+     *            The capacity of the data.
+     * @return The size, header included.
+     */
+    static int sizeOf(final int capacity) {
+	return MappedRing.HEADER_SIZE + capacity;
+    }
+
+    /** The {@link ByteBuffer} of the ring, header included. */
+    private final ByteBuffer buffer;
+
+    /** The capacity of the data, a power of 2. */
+    private final int capacity;
+
+    /** The last known position of the other side. */
+    private long cached;
+
+    /** The position of this side. */
+    private long position;
+
+    /** The view of the {@link #buffer} to copy the bytes of frames. */
+    private final ByteBuffer view;
+
+    /**
+     * Constructor.<br />
+     * A new ring must be filled with zeros.
+     * 
+     * @param buffer
+     *            The {@link ByteBuffer} of the ring, header included, of
+     *            {@link #sizeOf(int)} bytes, in native order.
+     * @param capacity
+     *            The capacity of the data, a power of 2.
+     * @param producer
+     *            If this side writes, otherwise it reads.
+     * @throws IllegalArgumentException
+     *             Capacity not a power of 2.
+     */
+    MappedRing(final ByteBuffer buffer, final int capacity,
+	    final boolean producer) {
+	if ((capacity < 8) || (Integer.bitCount(capacity) != 1))
+	    throw new IllegalArgumentException(
+		    "Capacity not a power of 2: " + capacity);
+	this.buffer = buffer;
+	this.capacity = capacity;
+	view = buffer.duplicate();
+	position = MappedRing.getAcquire(buffer,
+		producer ? MappedRing.TAIL : MappedRing.HEAD);
+	cached = MappedRing.getAcquire(buffer,
+		producer ? MappedRing.HEAD : MappedRing.TAIL);
+    }
+
+    /**
+     * Gets the closed state, written by the producer.
+     * 
+     * @return The state, 0 if open.
+     */
+    long getClosed() {
+	return MappedRing.getAcquire(buffer, MappedRing.CLOSED);
+    }
+
+    /**
+     * Tests if the ring has a frame to read.
+     * 
+     * @return Result.
+     */
+    boolean isEmpty() {
+	if (position != cached)
+	    return false;
+	cached = MappedRing.getAcquire(buffer, MappedRing.TAIL);
+	return position == cached;
+    }
+
+    /**
+     * Write a frame.<br />
+     * Producer only.
+     * 
+     * @param bytes
+     *            The bytes.
+     * @param offset
+     *            The offset of the frame.
+     * @param length
+     *            The length of the frame.
+     * @return <code>true</code> if written, <code>false</code> if no space.
+     * @throws IllegalArgumentException
+     *             Frame larger than half the capacity.
+     */
+    boolean offer(final byte[] bytes, final int offset, final int length) {
+	int size = MappedRing.align(4 + length);
+	if ((capacity / 2) < size)
+	    throw new IllegalArgumentException("Frame too large: " + length);
+	int index = (int) (position & (capacity - 1));
+	int toEnd = capacity - index;
+	int needed = toEnd < size ? toEnd + size : size;
+	if ((capacity - (position - cached)) < needed) {
+	    cached = MappedRing.getAcquire(buffer, MappedRing.HEAD);
+	    if ((capacity - (position - cached)) < needed)
+		return false;
+	}
+
+	long tail = position;
+	if (toEnd < size) {
+	    buffer.putInt(MappedRing.HEADER_SIZE + index, MappedRing.PADDING);
+	    tail += toEnd;
+	    index = 0;
+	}
+	buffer.putInt(MappedRing.HEADER_SIZE + index, length);
+	view.position(MappedRing.HEADER_SIZE + index + 4);
+	view.put(bytes, offset, length);
+	position = tail + size;
+	MappedRing.setRelease(buffer, MappedRing.TAIL, position);
+	return true;
+    }
+
+    /**
+     * Read the next frame.<br />
+     * Consumer only.
+     * 
+     * @param bytes
+     *            The destination, large enough for half the capacity.
+     * @return The length of the frame, <code>-1</code> if empty.
+     */
+    int poll(final byte[] bytes) {
+	if (isEmpty())
+	    return -1;
+	int index = (int) (position & (capacity - 1));
+	int length = buffer.getInt(MappedRing.HEADER_SIZE + index);
+	if (length == MappedRing.PADDING) {
+	    position += capacity - index;
+	    index = 0;
+	    length = buffer.getInt(MappedRing.HEADER_SIZE);
+	}
+	view.position(MappedRing.HEADER_SIZE + index + 4);
+	view.get(bytes, 0, length);
+	position += MappedRing.align(4 + length);
+	MappedRing.setRelease(buffer, MappedRing.HEAD, position);
+	return length;
+    }
+
+    /**
+     * Sets the closed state.<br />
+     * Producer only.
+     * 
+     * @param state
+     *            {@link #CLOSED_END} or {@link #CLOSED_RESET}.
+     */
+    void setClosed(final long state) {
+	MappedRing.setRelease(buffer, MappedRing.CLOSED, state);
+    }
+
+}
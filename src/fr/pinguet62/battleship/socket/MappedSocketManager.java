@@ -0,0 +1,61 @@
+package fr.pinguet62.battleship.socket;
+
+import java.io.IOException;
+
+import fr.pinguet62.battleship.model.Game;
+
+/**
+ * Class who interacts with an opponent of the same host, by a
+ * {@link MappedConnection}.<br />
+ * The port identifies the file shared by the host and the guest.
+ * 
+ * @see Transport#MAPPED
+ */
+public final class MappedSocketManager extends AbstractSocketManager {
+
+    /**
+     * Constructor.
+     * 
+     * @param game
+     *            The {@link Game}.
+     */
+    public MappedSocketManager(final Game game) {
+	super(game);
+    }
+
+    /**
+     * Create the {@link MappedConnection} and start the
+     * {@link MappedThreadSocket}.<br />
+     * The method is executed by the
+     * {@link fr.pinguet62.battleship.model.GameEventLoop}: by the host when
+     * the guest is attached, by the guest once started.
+     * 
+     * @param onConnected
+     *            The {@link Runnable} to execute after connection.
+     * @throws SocketException
+     *             Error creating or opening the file.
+     */
+    @Override
+    public void connect(final Runnable onConnected) {
+	boolean host = game.getPlayerType().isHost();
+	MappedConnection mappedConnection;
+	try {
+	    mappedConnection = host ? MappedConnection.create(port)
+		    : MappedConnection.open(port);
+	} catch (IOException exception) {
+	    throw new SocketException(host ? "Error creating shared file."
+		    : "Error during connection to host.", exception);
+	}
+	MappedThreadSocket mappedThreadSocket = new MappedThreadSocket(
+		mappedConnection, host);
+	bind(mappedThreadSocket);
+	threadSocket = mappedThreadSocket;
+	if (host)
+	    mappedThreadSocket.setOnConnectedListener(() -> game.getEventLoop()
+		    .submit(onConnected));
+	mappedThreadSocket.start(threadMode);
+	if (!host)
+	    game.getEventLoop().submit(onConnected);
+    }
+
+}
@@ -0,0 +1,95 @@
+package fr.pinguet62.battleship.socket;
+
+import java.io.IOException;
+
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.battleship.socket.dto.ResumeDto;
+
+/**
+ * {@link AbstractThreadSocket} over a {@link MappedConnection}.<br />
+ * The host waits for the guest to open the file. The session can't be
+ * resumed: both processes share the same host, the connection can't drop.
+ * <br />
+ * The {@link Heartbeat} starts at attachment: a guest attached to the stale
+ * file of a crashed host closes after the missed heartbeats.
+ */
+final class MappedThreadSocket extends AbstractThreadSocket {
+
+    /** The {@link MappedConnection}, before the guest is attached. */
+    private final MappedConnection mappedConnection;
+
+    /** The {@link Runnable} to execute after guest connection. */
+    private Runnable onConnectedListener;
+
+    /**
+     * Constructor.
+     * 
+     * @param mappedConnection
+     *            The {@link MappedConnection}.
+     * @param host
+     *            If this side is the host: connected when the guest is
+     *            attached.
+     */
+    MappedThreadSocket(final MappedConnection mappedConnection,
+	    final boolean host) {
+	dispatcher.register(ParametersDto.class, (parametersDto) -> {
+	    System.out.println("Parameters received: " + parametersDto);
+	    if (onParametersReceivedListener != null)
+		onParametersReceivedListener.accept(parametersDto);
+	});
+	this.mappedConnection = mappedConnection;
+	if (!host)
+	    connection = mappedConnection;
+    }
+
+    @Override
+    public void closeAndStop() {
+	super.closeAndStop();
+	mappedConnection.close();
+    }
+
+    @Override
+    protected ResumeDto reconnect(final int timeout) throws IOException {
+	throw new IOException("Mapped connection can't be resumed.");
+    }
+
+    /** Listening opponent. */
+    @Override
+    public void run() {
+	// Guest connection
+	if (connection == null) {
+	    System.out.println("Waiting guest connection...");
+	    int idle = 0;
+	    while (!mappedConnection.isAttached()) {
+		if (closed)
+		    return;
+		idle = MappedRing.idle(idle);
+	    }
+	    connection = mappedConnection;
+	    outboundQueue.start(connection, threadMode);
+	    System.out.println("Guest connected.");
+	    if (onConnectedListener != null)
+		onConnectedListener.run();
+	}
+
+	// Messages
+	startHeartbeat();
+	try {
+	    listen();
+	} catch (IOException exception) {
+	    throw new SocketException("Error receiving message from opponent.",
+		    exception);
+	}
+    }
+
+    /**
+     * Sets the {@link Runnable} to execute after guest connection.
+     * 
+     * @param onConnected
+     *            The {@link Runnable} to execute.
+     */
+    void setOnConnectedListener(final Runnable onConnected) {
+	onConnectedListener = onConnected;
+    }
+
+}
@@ -0,0 +1,61 @@
+package fr.pinguet62.battleship.socket;
+
+import java.io.StreamCorruptedException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import fr.pinguet62.battleship.socket.codec.MessageType;
+
+/**
+ * Route each received message to the handler registered for its
+ * {@link MessageType}, whatever the order of messages: the read loop gets
+ * the handler by {@link #getHandler(Object)}, then calls it directly or
+ * through the {@link InboundQueue}.<br />
+ * Handlers are registered before the first message: then, the
+ * {@link MessageDispatcher} is only read.
+ */
+public final class MessageDispatcher {
+
+    /** The handlers, by {@link MessageType}. */
+    private final Map<MessageType, Consumer<Object>> handlers = new EnumMap<>(
+	    MessageType.class);
+
+    /**
+     * Gets the handler of the {@link MessageType} of a message.
+     * 
+     * @param message
+     *            The message.
+     * @return The handler.
+     * @throws StreamCorruptedException
+     *             No handler for this {@link MessageType}.
+     */
+    public Consumer<Object> getHandler(final Object message)
+	    throws StreamCorruptedException {
+	Consumer<Object> handler = handlers.get(MessageType.of(message));
+	if (handler == null)
+	    throw new StreamCorruptedException(String.format(
+		    "Unexpected message [%s].", message.getClass()
+			    .getSimpleName()));
+	return handler;
+    }
+
+    /**
+     * Register the handler of a type of message, replacing the previous one.
+     * 
+     * @param <T>
+     *            The type of message.
+     * @param type
+     *            The class of message.
+     * @param handler
+     *            The handler.
+     * @throws IllegalArgumentException
+     *             Unknown class of message.
+     */
+    public <T> void register(final Class<T> type,
+	    final Consumer<? super T> handler) {
+	handlers.put(MessageType.getByType(type),
+		(message) -> handler.accept(type.cast(message)));
+    }
+
+}
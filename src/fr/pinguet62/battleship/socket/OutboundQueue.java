@@ -0,0 +1,265 @@
+package fr.pinguet62.battleship.socket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import fr.pinguet62.battleship.socket.codec.MessageType;
+
+/**
+ * Bounded queue of messages to send, drained by a writer {@link Thread}.<br />
+ * The writer writes all pending messages, up to {@link #MAX_BATCH}, then
+ * flushes the {@link Connection} once. Senders never block: the result of each
+ * message is reported by a {@link CompletableFuture}.
+ * <p>
+ * Sent messages of the game are kept into a {@link ReplayBuffer}, not the
+ * control messages (see {@link MessageType#isReplayable()}). When the
+ * {@link Connection} is lost, the writer waits for {@link #resume(Connection,
+ * long)}, who sends again the messages not received by the opponent. If the
+ * session cannot be resumed, the messages fail and the queue is closed.
+ */
+public final class OutboundQueue implements Runnable {
+
+    /** A message and its {@link CompletableFuture}. */
+    private static final class Pending {
+
+	/** The {@link CompletableFuture}, completed when sent. */
+	private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+	/** The message. */
+	private final Object message;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param message
+	 *            The message.
+	 */
+	private Pending(final Object message) {
+	    this.message = message;
+	}
+
+    }
+
+    /** The default capacity. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** The maximal number of messages sent by one flush. */
+    public static final int MAX_BATCH = 64;
+
+    /** If closed. */
+    private volatile boolean closed;
+
+    /**
+     * The {@link Connection}, <code>null</code> before start.<br />
+     * Guarded by {@link #lock}.
+     */
+    private Connection connection;
+
+    /**
+     * The generation of {@link Connection}, incremented by each resume.<br />
+     * Guarded by {@link #lock}.
+     */
+    private volatile long generation;
+
+    /** The lock of the {@link Connection} and the sent messages. */
+    private final Object lock = new Object();
+
+    /** The pending messages. */
+    private final BlockingQueue<Pending> queue;
+
+    /** Tests if a lost {@link Connection} can be resumed. */
+    private final BooleanSupplier resumable;
+
+    /**
+     * The sent messages, to send again after a resume.<br />
+     * Guarded by {@link #lock}.
+     */
+    private final ReplayBuffer sent = new ReplayBuffer(
+	    ReplayBuffer.DEFAULT_CAPACITY);
+
+    /** The writer {@link Thread}, <code>null</code> before start. */
+    private Thread writer;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The maximal number of pending messages.
+     * @param resumable
+     *            Tests if a lost {@link Connection} can be resumed.
+     */
+    public OutboundQueue(final int capacity, final BooleanSupplier resumable) {
+	queue = new ArrayBlockingQueue<>(capacity);
+	this.resumable = resumable;
+    }
+
+    /**
+     * Wait for a {@link #resume(Connection, long)} after a lost
+     * {@link Connection}.
+     * 
+     * @param lost
+     *            The generation of the lost {@link Connection}.
+     * @return <code>true</code> if resumed, <code>false</code> if closed.
+     */
+    private synchronized boolean awaitResume(final long lost) {
+	try {
+	    while (!closed && (generation == lost))
+		wait();
+	} catch (InterruptedException exception) {
+	    return false;
+	}
+	return !closed;
+    }
+
+    /** Stop the writer {@link Thread}, and fail the pending messages. */
+    public synchronized void close() {
+	closed = true;
+	if (writer != null)
+	    writer.interrupt();
+	notifyAll();
+	fail(new ArrayList<>(), new SocketException("Connection closed.", null));
+    }
+
+    /**
+     * Fail a batch of messages, and all pending messages.
+     * 
+     * @param batch
+     *            The batch.
+     * @param exception
+     *            The cause.
+     */
+    private void fail(final List<Pending> batch,
+	    final RuntimeException exception) {
+	queue.drainTo(batch);
+	for (Pending pending : batch)
+	    pending.future.completeExceptionally(exception);
+	batch.clear();
+    }
+
+    /**
+     * Enqueue a message to send, without blocking.
+     * 
+     * @param message
+     *            The message.
+     * @return The {@link CompletableFuture} completed when the message is
+     *         sent, or failed if the queue is full or closed.
+     */
+    public CompletableFuture<Void> offer(final Object message) {
+	Pending pending = new Pending(message);
+	if (closed)
+	    pending.future.completeExceptionally(new SocketException(
+		    "Connection closed.", null));
+	else if (!queue.offer(pending))
+	    pending.future.completeExceptionally(new SocketException(
+		    "Send queue full.", null));
+	return pending.future;
+    }
+
+    /**
+     * Resume on a new {@link Connection}: send the messages not received by
+     * the opponent, then send next messages on this {@link Connection}.
+     * 
+     * @param resumed
+     *            The new {@link Connection}.
+     * @param received
+     *            The number of messages received by the opponent.
+     * @return The number of messages sent again.
+     * @throws IllegalStateException
+     *             Messages no longer kept, see
+     *             {@link ReplayBuffer#canReplay(long)}.
+     * @throws SocketException
+     *             Error writing the new {@link Connection}.
+     */
+    public int resume(final Connection resumed, final long received) {
+	int replayed;
+	synchronized (lock) {
+	    sent.replay(received, resumed::write);
+	    replayed = (int) (sent.getSequence() - received);
+	    resumed.flush();
+	    connection = resumed;
+	    generation++;
+	}
+	synchronized (this) {
+	    notifyAll();
+	}
+	return replayed;
+    }
+
+    /**
+     * Write batches of pending messages, until {@link #close()}.<br />
+     * If the {@link Connection} is lost, it is closed and the batch is
+     * completed after {@link #resume(Connection, long)}; or failed, and the
+     * queue closed, if the session cannot be resumed.
+     */
+    @Override
+    public void run() {
+	List<Pending> batch = new ArrayList<>(OutboundQueue.MAX_BATCH);
+	while (!closed)
+	    try {
+		batch.add(queue.take());
+		queue.drainTo(batch, OutboundQueue.MAX_BATCH - 1);
+		SocketException lost = null;
+		long written;
+		synchronized (lock) {
+		    written = generation;
+		    for (Pending pending : batch)
+			if (MessageType.of(pending.message).isReplayable())
+			    sent.add(pending.message);
+		    try {
+			for (Pending pending : batch)
+			    connection.write(pending.message);
+			connection.flush();
+		    } catch (SocketException exception) {
+			lost = exception;
+			connection.reset();
+		    }
+		}
+		if ((lost != null) && (!resumable.getAsBoolean()
+			|| !awaitResume(written))) {
+		    fail(batch, lost);
+		    close();
+		    break;
+		}
+		for (Pending pending : batch)
+		    pending.future.complete(null);
+		batch.clear();
+	    } catch (InterruptedException exception) {
+		break;
+	    }
+	fail(batch, new SocketException("Connection closed.", null));
+    }
+
+    /**
+     * Gets the number of pending messages.
+     * 
+     * @return The number.
+     */
+    public int size() {
+	return queue.size();
+    }
+
+    /**
+     * Start the writer {@link Thread}.<br />
+     * Messages enqueued before are sent.
+     * 
+     * @param connection
+     *            The {@link Connection}.
+     * @param threadMode
+     *            The {@link ThreadMode} of the writer {@link Thread}.
+     */
+    public synchronized void start(final Connection connection,
+	    final ThreadMode threadMode) {
+	if (closed)
+	    return;
+	synchronized (lock) {
+	    this.connection = connection;
+	}
+	writer = threadMode.newThread(this, "OutboundQueue");
+	writer.start();
+    }
+
+}
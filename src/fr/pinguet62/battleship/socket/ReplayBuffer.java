@@ -0,0 +1,91 @@
+package fr.pinguet62.battleship.socket;
+
+import java.util.function.Consumer;
+
+/**
+ * Ring buffer of the last sent messages, numbered by sequence since the start
+ * of the session.<br />
+ * The first message has the sequence 1. When full, the oldest message is
+ * replaced. Not thread-safe.
+ */
+public final class ReplayBuffer {
+
+    /** The default capacity. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * The messages: the message of sequence <code>n</code> at index
+     * <code>(n - 1) % capacity</code>.
+     */
+    private final Object[] messages;
+
+    /** The sequence of the last message, 0 if none. */
+    private long sequence;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The maximal number of kept messages.
+     * @throws IllegalArgumentException
+     *             Capacity not positive.
+     */
+    public ReplayBuffer(final int capacity) {
+	if (capacity <= 0)
+	    throw new IllegalArgumentException("Capacity not positive.");
+	messages = new Object[capacity];
+    }
+
+    /**
+     * Add a sent message.
+     * 
+     * @param message
+     *            The message.
+     * @return The sequence of the message.
+     */
+    public long add(final Object message) {
+	messages[(int) (sequence % messages.length)] = message;
+	return ++sequence;
+    }
+
+    /**
+     * Tests if the messages after a sequence are all kept.
+     * 
+     * @param from
+     *            The sequence of the last message received by the opponent.
+     * @return Result.
+     */
+    public boolean canReplay(final long from) {
+	return (0 <= from) && (from <= sequence)
+		&& ((sequence - from) <= messages.length);
+    }
+
+    /**
+     * Gets the sequence of the last message.
+     * 
+     * @return The sequence, 0 if none.
+     */
+    public long getSequence() {
+	return sequence;
+    }
+
+    /**
+     * Execute an action for each message after a sequence, in order.
+     * 
+     * @param from
+     *            The sequence of the last message received by the opponent.
+     * @param action
+     *            The action.
+     * @throws IllegalStateException
+     *             Messages not kept, see {@link #canReplay(long)}.
+     */
+    public void replay(final long from, final Consumer<Object> action) {
+	if (!canReplay(from))
+	    throw new IllegalStateException(String.format(
+		    "Cannot replay from %d: last sequence %d, capacity %d.",
+		    from, sequence, messages.length));
+	for (long seq = from; seq < sequence; seq++)
+	    action.accept(messages[(int) (seq % messages.length)]);
+    }
+
+}
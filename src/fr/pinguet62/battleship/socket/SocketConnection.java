@@ -0,0 +1,126 @@
+package fr.pinguet62.battleship.socket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.net.Socket;
+
+import fr.pinguet62.battleship.socket.codec.MessageDecoder;
+import fr.pinguet62.battleship.socket.codec.MessageEncoder;
+
+/**
+ * {@link Connection} over a {@link Socket}: one {@link MessageEncoder} and one
+ * {@link MessageDecoder}, over buffered streams, for the whole session.<br />
+ * Each message is a length-prefixed frame: several messages can be
+ * {@link #write(Object) written} then {@link #flush() flushed} together.
+ */
+public final class SocketConnection implements Connection {
+
+    /** The size of buffers. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The {@link MessageDecoder}. */
+    private final MessageDecoder decoder = new MessageDecoder();
+
+    /** The {@link MessageEncoder}. */
+    private final MessageEncoder encoder = new MessageEncoder();
+
+    /** The buffered {@link InputStream}. */
+    private final InputStream input;
+
+    /** The buffered {@link OutputStream}. */
+    private final OutputStream output;
+
+    /** The {@link Socket}. */
+    private final Socket socket;
+
+    /**
+     * Constructor.
+     * 
+     * @param socket
+     *            The connected {@link Socket}.
+     * @throws SocketException
+     *             Error getting the streams.
+     */
+    public SocketConnection(final Socket socket) {
+	this.socket = socket;
+	try {
+	    socket.setTcpNoDelay(true);
+	    input = new BufferedInputStream(socket.getInputStream(),
+		    SocketConnection.BUFFER_SIZE);
+	    output = new BufferedOutputStream(socket.getOutputStream(),
+		    SocketConnection.BUFFER_SIZE);
+	} catch (IOException exception) {
+	    throw new SocketException("Error getting streams.", exception);
+	}
+    }
+
+    @Override
+    public void close() {
+	try {
+	    socket.close();
+	} catch (IOException e) {
+	}
+    }
+
+    /**
+     * Gets the {@link Socket}.
+     * 
+     * @return The {@link Socket}.
+     */
+    public Socket getSocket() {
+	return socket;
+    }
+
+    @Override
+    public boolean isClosed() {
+	return socket.isClosed();
+    }
+
+    @Override
+    public <T> T receive(final Class<T> type) throws IOException {
+	Object message = decoder.readFrame(input);
+	if (!type.isInstance(message))
+	    throw new StreamCorruptedException(String.format(
+		    "Unexpected message [%s] instead of [%s].", message
+			    .getClass().getSimpleName(), type.getSimpleName()));
+	return type.cast(message);
+    }
+
+    @Override
+    public void reset() {
+	try {
+	    socket.setSoLinger(true, 0);
+	} catch (IOException e) {
+	}
+	close();
+    }
+
+    @Override
+    public synchronized void flush() {
+	try {
+	    output.flush();
+	} catch (IOException exception) {
+	    throw new SocketException("Error sending message.", exception);
+	}
+    }
+
+    @Override
+    public synchronized void send(final Object message) {
+	write(message);
+	flush();
+    }
+
+    @Override
+    public synchronized void write(final Object message) {
+	try {
+	    encoder.encode(message).writeFrame(output);
+	} catch (IOException exception) {
+	    throw new SocketException("Error sending message.", exception);
+	}
+    }
+
+}
@@ -0,0 +1,102 @@
+package fr.pinguet62.battleship.socket;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Kind of {@link Thread} running the blocking read loop of an
+ * {@link AbstractThreadSocket}.
+ * <p>
+ * The default mode is read from the system property {@value #PROPERTY}
+ * (<code>PLATFORM</code> or <code>VIRTUAL</code>), to compare both under the
+ * same load.
+ */
+public enum ThreadMode {
+
+    /** A platform {@link Thread}, one per connection. */
+    PLATFORM,
+    /**
+     * A virtual {@link Thread}: a blocked read doesn't hold a platform
+     * {@link Thread}.<br />
+     * Requires Java 21, otherwise a platform {@link Thread} is used.
+     */
+    VIRTUAL;
+
+    /** The system property of the default {@link ThreadMode}. */
+    public static final String PROPERTY = "battleship.threadMode";
+
+    /**
+     * The method <code>Thread.ofVirtual()</code>, <code>null</code> if virtual
+     * {@link Thread}s are not supported.
+     */
+    private static final Method OF_VIRTUAL;
+
+    /**
+     * The method <code>Thread.Builder.unstarted(Runnable)</code>,
+     * <code>null</code> if virtual {@link Thread}s are not supported.
+     */
+    private static final Method UNSTARTED;
+
+    static {
+	Method ofVirtual = null;
+	Method unstarted = null;
+	try {
+	    ofVirtual = Thread.class.getMethod("ofVirtual");
+	    unstarted = Class.forName("java.lang.Thread$Builder").getMethod(
+		    "unstarted", Runnable.class);
+	} catch (ReflectiveOperationException exception) {
+	    // Java < 21
+	}
+	OF_VIRTUAL = ofVirtual;
+	UNSTARTED = unstarted;
+    }
+
+    /**
+     * Gets the default {@link ThreadMode}, from the system property
+     * {@value #PROPERTY}.
+     * 
+     * @return The {@link ThreadMode}, {@link #PLATFORM} if undefined.
+     * @throws IllegalArgumentException
+     *             Unknown {@link ThreadMode}.
+     */
+    public static ThreadMode getDefault() {
+	String value = System.getProperty(ThreadMode.PROPERTY);
+	if (value == null)
+	    return ThreadMode.PLATFORM;
+	return ThreadMode.valueOf(value.trim().toUpperCase());
+    }
+
+    /**
+     * Tests if this {@link ThreadMode} is supported by the running JVM.
+     * 
+     * @return Result.
+     */
+    public boolean isSupported() {
+	return (this != ThreadMode.VIRTUAL) || (ThreadMode.UNSTARTED != null);
+    }
+
+    /**
+     * Create a {@link Thread} of this mode, not started.<br />
+     * Fallback on a platform {@link Thread} if not {@link #isSupported()}.
+     * 
+     * @param runnable
+     *            The {@link Runnable} to run.
+     * @param name
+     *            The name of the {@link Thread}.
+     * @return The {@link Thread}.
+     */
+    public Thread newThread(final Runnable runnable, final String name) {
+	if (isSupported() && (this == ThreadMode.VIRTUAL))
+	    try {
+		Object builder = ThreadMode.OF_VIRTUAL.invoke(null);
+		Thread thread = (Thread) ThreadMode.UNSTARTED.invoke(builder,
+			runnable);
+		thread.setName(name);
+		return thread;
+	    } catch (IllegalAccessException | InvocationTargetException exception) {
+		// Fallback
+	    }
+	return new Thread(runnable, name);
+    }
+
+}
@@ -0,0 +1,54 @@
+package fr.pinguet62.battleship.socket;
+
+import java.util.function.Function;
+
+import fr.pinguet62.battleship.model.Game;
+import fr.pinguet62.battleship.model.PlayerType;
+
+/**
+ * Transport of messages between the host and the guest.
+ * <p>
+ * The default transport is read from the system property {@value #PROPERTY}
+ * (<code>TCP</code> or <code>MAPPED</code>).
+ */
+public enum Transport {
+
+    /** A shared memory-mapped file: host and guest on the same machine. */
+    MAPPED,
+    /** A TCP {@link java.net.Socket}. */
+    TCP;
+
+    /** The system property of the default {@link Transport}. */
+    public static final String PROPERTY = "battleship.transport";
+
+    /**
+     * Gets the default {@link Transport}, from the system property
+     * {@value #PROPERTY}.
+     * 
+     * @return The {@link Transport}, {@link #TCP} if undefined.
+     * @throws IllegalArgumentException
+     *             Unknown {@link Transport}.
+     */
+    public static Transport getDefault() {
+	String value = System.getProperty(Transport.PROPERTY);
+	if (value == null)
+	    return Transport.TCP;
+	return Transport.valueOf(value.trim().toUpperCase());
+    }
+
+    /**
+     * Gets the factory of the {@link AbstractSocketManager} of a player.
+     * 
+     * @param playerType
+     *            The {@link PlayerType}.
+     * @return The factory, for {@link Game#Game(PlayerType, Function)}.
+     */
+    public Function<Game, AbstractSocketManager> getFactory(
+	    final PlayerType playerType) {
+	if (this == Transport.MAPPED)
+	    return MappedSocketManager::new;
+	return playerType.isHost() ? HostSocketManager::new
+		: GuestSocketManager::new;
+    }
+
+}
@@ -0,0 +1,367 @@
+package fr.pinguet62.battleship.socket.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.pinguet62.battleship.model.boat.BoatType;
+import fr.pinguet62.battleship.model.grid.Coordinates;
+import fr.pinguet62.battleship.socket.dto.AttackDto;
+import fr.pinguet62.battleship.socket.dto.BoatPosition;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.battleship.socket.dto.ParametersDto.BoatEntry;
+import fr.pinguet62.battleship.socket.dto.PingDto;
+import fr.pinguet62.battleship.socket.dto.PongDto;
+import fr.pinguet62.battleship.socket.dto.PositionsDto;
+import fr.pinguet62.battleship.socket.dto.ResumeDto;
+import fr.pinguet62.battleship.socket.dto.SalvoDto;
+import fr.pinguet62.battleship.socket.dto.SessionDto;
+
+/**
+ * Decode messages written by a {@link MessageEncoder}, from a reusable
+ * buffer.<br />
+ * Not thread-safe.
+ * 
+ * @see MessageEncoder
+ */
+public final class MessageDecoder {
+
+    /** The maximal length of a frame. */
+    public static final int MAX_FRAME_LENGTH = 1 << 26;
+
+    /**
+     * The maximal number of cells of a grid: far above
+     * {@link fr.pinguet62.battleship.model.grid.Fleet#BITBOARD_MAX_CELLS},
+     * larger grids being sparse.
+     */
+    public static final long MAX_GRID_CELLS = 1L << 32;
+
+    /**
+     * Gets the size of the frame starting at the position of a
+     * {@link ByteBuffer}, without moving its position.
+     * 
+     * @param buffer
+     *            The {@link ByteBuffer}, in read mode.
+     * @param maxFrameLength
+     *            The maximal length of the message.
+     * @return The size of the frame (length and message), <code>-1</code> if
+     *         the length is not complete.
+     * @throws StreamCorruptedException
+     *             Invalid length.
+     */
+    public static int getFrameSize(final ByteBuffer buffer,
+	    final int maxFrameLength) throws StreamCorruptedException {
+	int frameLength = 0;
+	int position = buffer.position();
+	for (int shift = 0;; shift += 7) {
+	    if (buffer.limit() <= position)
+		return -1;
+	    if (32 <= shift)
+		throw new StreamCorruptedException("Invalid frame length.");
+	    int b = buffer.get(position++);
+	    frameLength |= (b & 0x7F) << shift;
+	    if ((b & 0x80) == 0)
+		break;
+	}
+	if ((frameLength <= 0) || (maxFrameLength < frameLength))
+	    throw new StreamCorruptedException("Invalid frame length: "
+		    + frameLength);
+	return (position - buffer.position()) + frameLength;
+    }
+
+    /** The buffer. */
+    private byte[] buffer = new byte[64];
+
+    /** The number of bytes into the buffer. */
+    private int length;
+
+    /** The position of the next byte to read. */
+    private int position;
+
+    /**
+     * Decode a message.
+     * 
+     * @param bytes
+     *            The bytes.
+     * @param offset
+     *            The offset of the message.
+     * @param count
+     *            The length of the message.
+     * @return The message.
+     * @throws StreamCorruptedException
+     *             Invalid message.
+     */
+    public Object decode(final byte[] bytes, final int offset, final int count)
+	    throws StreamCorruptedException {
+	ensureCapacity(count);
+	System.arraycopy(bytes, offset, buffer, 0, count);
+	length = count;
+	return decode();
+    }
+
+    /**
+     * Decode a complete frame: its length, then its message.
+     * 
+     * @param bytes
+     *            The bytes.
+     * @param offset
+     *            The offset of the frame.
+     * @param count
+     *            The length of the frame, see
+     *            {@link #getFrameSize(ByteBuffer, int)}.
+     * @return The message.
+     * @throws StreamCorruptedException
+     *             Invalid frame.
+     */
+    public Object decodeFrame(final byte[] bytes, final int offset,
+	    final int count) throws StreamCorruptedException {
+	int header = 0;
+	while ((bytes[offset + header] & 0x80) != 0)
+	    header++;
+	header++;
+	return decode(bytes, offset + header, count - header);
+    }
+
+    /**
+     * Decode the message of the buffer.
+     * 
+     * @return The message.
+     * @throws StreamCorruptedException
+     *             Invalid message.
+     */
+    private Object decode() throws StreamCorruptedException {
+	position = 0;
+	int id = readByte();
+	MessageType messageType = MessageType.getById(id);
+	if (messageType == null)
+	    throw new StreamCorruptedException("Unknown type of message: " + id);
+
+	Object message;
+	switch (messageType) {
+	case PARAMETERS:
+	    int width = readVarInt();
+	    int height = readVarInt();
+	    long cells = (long) width * height;
+	    if ((width <= 0) || (height <= 0)
+		    || (MessageDecoder.MAX_GRID_CELLS < cells))
+		throw new StreamCorruptedException("Invalid size of grid.");
+	    int flags = readByte();
+	    if ((flags & ~3) != 0)
+		throw new StreamCorruptedException("Invalid flags.");
+	    int salvo = (flags & 2) == 0 ? 1 : readVarInt();
+	    if (salvo < 0)
+		throw new StreamCorruptedException("Invalid salvo.");
+	    int nbEntries = readCount(2);
+	    List<BoatEntry> boatEntries = new ArrayList<>(nbEntries);
+	    for (int i = 0; i < nbEntries; i++) {
+		BoatType boatType = readBoatType();
+		int number = readVarInt();
+		if (number < 0)
+		    throw new StreamCorruptedException("Invalid number.");
+		boatEntries.add(new BoatEntry(boatType, number));
+	    }
+	    message = new ParametersDto(width, height, boatEntries,
+		    (flags & 1) != 0, salvo);
+	    break;
+	case POSITIONS:
+	    int nbPositions = readCount(5);
+	    List<BoatPosition> boatPositions = new ArrayList<>(nbPositions);
+	    for (int i = 0; i < nbPositions; i++) {
+		BoatType boatType = readBoatType();
+		int x = readVarInt();
+		int y = readVarInt();
+		Coordinates first = new Coordinates(x, y);
+		Coordinates last = new Coordinates(x + readVarInt(), y
+			+ readVarInt());
+		boatPositions.add(new BoatPosition(boatType, first, last));
+	    }
+	    message = new PositionsDto(boatPositions);
+	    break;
+	case ATTACK:
+	    int x = readVarInt();
+	    int y = readVarInt();
+	    message = new AttackDto(new Coordinates(x, y));
+	    break;
+	case SESSION:
+	    message = new SessionDto(readLong());
+	    break;
+	case RESUME:
+	    long token = readLong();
+	    long received = readVarLong();
+	    if (received < 0)
+		throw new StreamCorruptedException("Invalid number.");
+	    message = new ResumeDto(token, received);
+	    break;
+	case PING:
+	    message = new PingDto(readLong());
+	    break;
+	case PONG:
+	    message = new PongDto(readLong());
+	    break;
+	case SALVO:
+	    int nbShots = readCount(2);
+	    List<Coordinates> shots = new ArrayList<>(nbShots);
+	    for (int i = 0; i < nbShots; i++) {
+		int shotX = readVarInt();
+		shots.add(new Coordinates(shotX, readVarInt()));
+	    }
+	    message = new SalvoDto(shots);
+	    break;
+	default:
+	    throw new StreamCorruptedException("Unknown type of message: " + id);
+	}
+	if (position != length)
+	    throw new StreamCorruptedException("Unexpected bytes after message.");
+	return message;
+    }
+
+    /**
+     * Ensure the capacity of the buffer.
+     * 
+     * @param capacity
+     *            The minimal capacity.
+     */
+    private void ensureCapacity(final int capacity) {
+	if (buffer.length < capacity)
+	    buffer = new byte[Math.max(capacity, buffer.length * 2)];
+    }
+
+    /**
+     * Read a {@link BoatType} by its identifier.
+     * 
+     * @return The {@link BoatType}.
+     * @throws StreamCorruptedException
+     *             Unknown identifier.
+     */
+    private BoatType readBoatType() throws StreamCorruptedException {
+	int id = readByte();
+	try {
+	    return BoatType.getById(id);
+	} catch (IllegalArgumentException exception) {
+	    throw new StreamCorruptedException("Unknown boat type: " + id);
+	}
+    }
+
+    /**
+     * Read a byte.
+     * 
+     * @return The byte.
+     * @throws StreamCorruptedException
+     *             End of message.
+     */
+    private int readByte() throws StreamCorruptedException {
+	if (length <= position)
+	    throw new StreamCorruptedException("Truncated message.");
+	return buffer[position++];
+    }
+
+    /**
+     * Read a number of elements, checked against the remaining bytes.
+     * 
+     * @param minSize
+     *            The minimal number of bytes of an element.
+     * @return The number of elements.
+     * @throws StreamCorruptedException
+     *             Number greater than the remaining bytes allow.
+     */
+    private int readCount(final int minSize) throws StreamCorruptedException {
+	int count = readVarInt();
+	if ((count < 0) || (((length - position) / minSize) < count))
+	    throw new StreamCorruptedException("Invalid number of elements.");
+	return count;
+    }
+
+    /**
+     * Read a long on 8 bytes, big-endian.
+     * 
+     * @return The long.
+     * @throws StreamCorruptedException
+     *             End of message.
+     */
+    private long readLong() throws StreamCorruptedException {
+	long value = 0;
+	for (int i = 0; i < Long.BYTES; i++)
+	    value = (value << 8) | (readByte() & 0xFF);
+	return value;
+    }
+
+    /**
+     * Read the next frame and decode its message.<br />
+     * Block until the frame is received.
+     * 
+     * @param inputStream
+     *            The {@link InputStream}.
+     * @return The message.
+     * @throws IOException
+     *             Error reading, end of stream, or invalid frame.
+     */
+    public Object readFrame(final InputStream inputStream) throws IOException {
+	int frameLength = 0;
+	for (int shift = 0;; shift += 7) {
+	    int b = inputStream.read();
+	    if (b < 0)
+		throw new EOFException();
+	    if (32 <= shift)
+		throw new StreamCorruptedException("Invalid frame length.");
+	    frameLength |= (b & 0x7F) << shift;
+	    if ((b & 0x80) == 0)
+		break;
+	}
+	if ((frameLength <= 0) || (MessageDecoder.MAX_FRAME_LENGTH < frameLength))
+	    throw new StreamCorruptedException("Invalid frame length: "
+		    + frameLength);
+
+	// Grow as bytes arrive: a length alone does not allocate the frame
+	for (int read = 0; read < frameLength;) {
+	    ensureCapacity(read + 1);
+	    int n = inputStream.read(buffer, read,
+		    Math.min(frameLength, buffer.length) - read);
+	    if (n < 0)
+		throw new EOFException();
+	    read += n;
+	}
+	length = frameLength;
+	return decode();
+    }
+
+    /**
+     * Read an unsigned varint.
+     * 
+     * @return The integer.
+     * @throws StreamCorruptedException
+     *             Truncated or too long varint.
+     */
+    private int readVarInt() throws StreamCorruptedException {
+	int value = 0;
+	for (int shift = 0; shift < 32; shift += 7) {
+	    int b = readByte();
+	    value |= (b & 0x7F) << shift;
+	    if ((b & 0x80) == 0)
+		return value;
+	}
+	throw new StreamCorruptedException("Invalid varint.");
+    }
+
+    /**
+     * Read an unsigned varlong.
+     * 
+     * @return The long.
+     * @throws StreamCorruptedException
+     *             Truncated or too long varlong.
+     */
+    private long readVarLong() throws StreamCorruptedException {
+	long value = 0;
+	for (int shift = 0; shift < 64; shift += 7) {
+	    int b = readByte();
+	    value |= (long) (b & 0x7F) << shift;
+	    if ((b & 0x80) == 0)
+		return value;
+	}
+	throw new StreamCorruptedException("Invalid varlong.");
+    }
+
+}
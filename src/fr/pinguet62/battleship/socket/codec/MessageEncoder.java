@@ -0,0 +1,265 @@
+package fr.pinguet62.battleship.socket.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import fr.pinguet62.battleship.model.boat.BoatType;
+import fr.pinguet62.battleship.model.grid.Coordinates;
+import fr.pinguet62.battleship.socket.dto.AttackDto;
+import fr.pinguet62.battleship.socket.dto.BoatPosition;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.battleship.socket.dto.ParametersDto.BoatEntry;
+import fr.pinguet62.battleship.socket.dto.PingDto;
+import fr.pinguet62.battleship.socket.dto.PongDto;
+import fr.pinguet62.battleship.socket.dto.PositionsDto;
+import fr.pinguet62.battleship.socket.dto.ResumeDto;
+import fr.pinguet62.battleship.socket.dto.SalvoDto;
+import fr.pinguet62.battleship.socket.dto.SessionDto;
+
+/**
+ * Encode messages into a reusable buffer.
+ * <p>
+ * Frame: length of the message (varint), then the message: the identifier of
+ * the {@link MessageType} (1 byte), then its fields.<br />
+ * Integers are unsigned varints: 7 bits per byte, the high bit set if more
+ * bytes follow. Example: an {@link AttackDto} into a 10x10 grid is a frame of
+ * 4 bytes.
+ * <ul>
+ * <li>{@link ParametersDto}: width, height, flags (1 byte: 1 if the guest
+ * plays first, 2 if salvo), the salvo if flag 2, number of {@link BoatEntry}s,
+ * and for each one: identifier of {@link BoatType} (1 byte) and number;</li>
+ * <li>{@link PositionsDto}: number of {@link BoatPosition}s, and for each one:
+ * identifier of {@link BoatType} (1 byte), first x and y, and offsets of the
+ * last x and y from the first ones;</li>
+ * <li>{@link AttackDto}: x and y;</li>
+ * <li>{@link SalvoDto}: number of shots, and for each one: x and y;</li>
+ * <li>{@link SessionDto}: token (8 bytes, big-endian);</li>
+ * <li>{@link ResumeDto}: token (8 bytes, big-endian), and number of received
+ * messages (varlong);</li>
+ * <li>{@link PingDto} and {@link PongDto}: timestamp (8 bytes,
+ * big-endian).</li>
+ * </ul>
+ * Not thread-safe.
+ * 
+ * @see MessageDecoder
+ */
+public final class MessageEncoder {
+
+    /** The maximal number of bytes of a varint. */
+    static final int MAX_VARINT_SIZE = 5;
+
+    /** The maximal number of bytes of a varlong. */
+    static final int MAX_VARLONG_SIZE = 10;
+
+    /** The buffer. */
+    private byte[] buffer = new byte[64];
+
+    /** The number of bytes written into the buffer. */
+    private int length;
+
+    /**
+     * Encode a message into the buffer, replacing the previous one.
+     * 
+     * @param message
+     *            The message.
+     * @return This {@link MessageEncoder}.
+     * @throws IllegalArgumentException
+     *             Unknown type of message.
+     */
+    public MessageEncoder encode(final Object message) {
+	length = 0;
+	MessageType messageType = MessageType.of(message);
+	writeByte(messageType.getId());
+	switch (messageType) {
+	case PARAMETERS:
+	    ParametersDto parametersDto = (ParametersDto) message;
+	    writeVarInt(parametersDto.getWidth());
+	    writeVarInt(parametersDto.getHeight());
+	    int flags = parametersDto.isGuestFirst() ? 1 : 0;
+	    if (parametersDto.isSalvo())
+		flags |= 2;
+	    writeByte((byte) flags);
+	    if (parametersDto.isSalvo())
+		writeVarInt(parametersDto.getSalvo());
+	    Collection<BoatEntry> boatEntries = parametersDto.getBoatEntries();
+	    writeVarInt(boatEntries.size());
+	    for (BoatEntry boatEntry : boatEntries) {
+		writeByte(boatEntry.getBoatType().getId());
+		writeVarInt(boatEntry.getNumber());
+	    }
+	    break;
+	case POSITIONS:
+	    Collection<BoatPosition> boatPositions = ((PositionsDto) message)
+		    .getBoatPositions();
+	    writeVarInt(boatPositions.size());
+	    for (BoatPosition boatPosition : boatPositions) {
+		Coordinates first = boatPosition.getFirstCoordinate();
+		Coordinates last = boatPosition.getLastCoordinate();
+		writeByte(boatPosition.getBoatType().getId());
+		writeVarInt(first.getX());
+		writeVarInt(first.getY());
+		writeVarInt(last.getX() - first.getX());
+		writeVarInt(last.getY() - first.getY());
+	    }
+	    break;
+	case ATTACK:
+	    Coordinates coordinates = ((AttackDto) message).getCoordinates();
+	    writeVarInt(coordinates.getX());
+	    writeVarInt(coordinates.getY());
+	    break;
+	case SESSION:
+	    writeLong(((SessionDto) message).getToken());
+	    break;
+	case RESUME:
+	    ResumeDto resumeDto = (ResumeDto) message;
+	    writeLong(resumeDto.getToken());
+	    writeVarLong(resumeDto.getReceived());
+	    break;
+	case PING:
+	    writeLong(((PingDto) message).getTimestamp());
+	    break;
+	case PONG:
+	    writeLong(((PongDto) message).getTimestamp());
+	    break;
+	case SALVO:
+	    List<Coordinates> shots = ((SalvoDto) message).getCoordinates();
+	    writeVarInt(shots.size());
+	    for (Coordinates shot : shots) {
+		writeVarInt(shot.getX());
+		writeVarInt(shot.getY());
+	    }
+	    break;
+	}
+	return this;
+    }
+
+    /**
+     * Ensure the capacity of the buffer.
+     * 
+     * @param capacity
+     *            The minimal capacity.
+     */
+    private void ensureCapacity(final int capacity) {
+	if (buffer.length < capacity)
+	    buffer = Arrays.copyOf(buffer,
+		    Math.max(capacity, buffer.length * 2));
+    }
+
+    /**
+     * Gets the buffer, containing the encoded message from 0 to
+     * {@link #getLength()}.
+     * 
+     * @return The buffer.
+     */
+    public byte[] getBuffer() {
+	return buffer;
+    }
+
+    /**
+     * Gets a copy of the frame of the encoded message: its length, then its
+     * bytes.
+     * 
+     * @return The frame.
+     */
+    public byte[] getFrame() {
+	int prefix = 1;
+	for (int value = length >>> 7; value != 0; value >>>= 7)
+	    prefix++;
+	byte[] frame = new byte[prefix + length];
+	int value = length;
+	for (int i = 0; i < (prefix - 1); i++) {
+	    frame[i] = (byte) ((value & 0x7F) | 0x80);
+	    value >>>= 7;
+	}
+	frame[prefix - 1] = (byte) value;
+	System.arraycopy(buffer, 0, frame, prefix, length);
+	return frame;
+    }
+
+    /**
+     * Gets the length of the encoded message.
+     * 
+     * @return The number of bytes.
+     */
+    public int getLength() {
+	return length;
+    }
+
+    /**
+     * Write a byte.
+     * 
+     * @param value
+     *            The byte.
+     */
+    private void writeByte(final byte value) {
+	ensureCapacity(length + 1);
+	buffer[length++] = value;
+    }
+
+    /**
+     * Write a long on 8 bytes, big-endian.
+     * 
+     * @param value
+     *            The long.
+     */
+    private void writeLong(final long value) {
+	ensureCapacity(length + Long.BYTES);
+	for (int shift = Long.SIZE - 8; 0 <= shift; shift -= 8)
+	    buffer[length++] = (byte) (value >>> shift);
+    }
+
+    /**
+     * Write the frame of the encoded message: its length, then its bytes.<br />
+     * The {@link OutputStream} is not flushed.
+     * 
+     * @param outputStream
+     *            The {@link OutputStream}.
+     * @throws IOException
+     *             Error writing.
+     */
+    public void writeFrame(final OutputStream outputStream) throws IOException {
+	int value = length;
+	while ((value & ~0x7F) != 0) {
+	    outputStream.write((value & 0x7F) | 0x80);
+	    value >>>= 7;
+	}
+	outputStream.write(value);
+	outputStream.write(buffer, 0, length);
+    }
+
+    /**
+     * Write an integer as unsigned varint.
+     * 
+     * @param value
+     *            The integer.
+     */
+    private void writeVarInt(final int value) {
+	ensureCapacity(length + MessageEncoder.MAX_VARINT_SIZE);
+	int remaining = value;
+	while ((remaining & ~0x7F) != 0) {
+	    buffer[length++] = (byte) ((remaining & 0x7F) | 0x80);
+	    remaining >>>= 7;
+	}
+	buffer[length++] = (byte) remaining;
+    }
+
+    /**
+     * Write a long as unsigned varlong.
+     * 
+     * @param value
+     *            The long.
+     */
+    private void writeVarLong(final long value) {
+	ensureCapacity(length + MessageEncoder.MAX_VARLONG_SIZE);
+	long remaining = value;
+	while ((remaining & ~0x7FL) != 0) {
+	    buffer[length++] = (byte) ((remaining & 0x7F) | 0x80);
+	    remaining >>>= 7;
+	}
+	buffer[length++] = (byte) remaining;
+    }
+
+}
@@ -0,0 +1,138 @@
+package fr.pinguet62.battleship.socket.codec;
+
+import fr.pinguet62.battleship.socket.dto.AttackDto;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
+import fr.pinguet62.battleship.socket.dto.PingDto;
+import fr.pinguet62.battleship.socket.dto.PongDto;
+import fr.pinguet62.battleship.socket.dto.PositionsDto;
+import fr.pinguet62.battleship.socket.dto.ResumeDto;
+import fr.pinguet62.battleship.socket.dto.SalvoDto;
+import fr.pinguet62.battleship.socket.dto.SessionDto;
+
+/**
+ * Type of message, written as first byte of each frame: the tag of the
+ * envelope.<br />
+ * Messages of the game are counted by the session, and sent again after a
+ * resume; control messages are not.
+ */
+public enum MessageType {
+
+    /** {@link ParametersDto}. */
+    PARAMETERS(1, ParametersDto.class, true),
+    /** {@link PositionsDto}. */
+    POSITIONS(2, PositionsDto.class, true),
+    /** {@link AttackDto}. */
+    ATTACK(3, AttackDto.class, true),
+    /** {@link SessionDto}, control message. */
+    SESSION(4, SessionDto.class, false),
+    /** {@link ResumeDto}, control message. */
+    RESUME(5, ResumeDto.class, false),
+    /** {@link PingDto}, control message. */
+    PING(6, PingDto.class, false),
+    /** {@link PongDto}, control message. */
+    PONG(7, PongDto.class, false),
+    /** {@link SalvoDto}. */
+    SALVO(8, SalvoDto.class, true);
+
+    /**
+     * Gets the {@link MessageType} by its identifier.
+     * 
+     * @param id
+     *            The identifier.
+     * @return The {@link MessageType}, <code>null</code> if unknown.
+     */
+    public static MessageType getById(final int id) {
+	for (MessageType messageType : MessageType.values())
+	    if (messageType.id == id)
+		return messageType;
+	return null;
+    }
+
+    /**
+     * Gets the {@link MessageType} of a class of message.
+     * 
+     * @param type
+     *            The class of message.
+     * @return The {@link MessageType}.
+     * @throws IllegalArgumentException
+     *             Unknown class of message.
+     */
+    public static MessageType getByType(final Class<?> type) {
+	for (MessageType messageType : MessageType.values())
+	    if (messageType.type == type)
+		return messageType;
+	throw new IllegalArgumentException("Unknown class of message: "
+		+ type.getName());
+    }
+
+    /**
+     * Gets the {@link MessageType} of a message.
+     * 
+     * @param message
+     *            The message.
+     * @return The {@link MessageType}.
+     * @throws IllegalArgumentException
+     *             Unknown type of message.
+     */
+    public static MessageType of(final Object message) {
+	for (MessageType messageType : MessageType.values())
+	    if (messageType.type.isInstance(message))
+		return messageType;
+	throw new IllegalArgumentException("Unknown type of message: "
+		+ message);
+    }
+
+    /** The identifier, written on the wire. */
+    private final byte id;
+
+    /** If a message of the game, not a control message. */
+    private final boolean replayable;
+
+    /** The class of message. */
+    private final Class<?> type;
+
+    /**
+     * Constructor.
+     * 
+     * @param id
+     *            The identifier, written on the wire.
+     * @param type
+     *            The class of message.
+     * @param replayable
+     *            If a message of the game, not a control message.
+     */
+    MessageType(final int id, final Class<?> type, final boolean replayable) {
+	this.id = (byte) id;
+	this.type = type;
+	this.replayable = replayable;
+    }
+
+    /**
+     * Gets the identifier, written on the wire.
+     * 
+     * @return The identifier.
+     */
+    public byte getId() {
+	return id;
+    }
+
+    /**
+     * Gets the class of message.
+     * 
+     * @return The class.
+     */
+    public Class<?> getType() {
+	return type;
+    }
+
+    /**
+     * Tests if a message of the game, counted by the session and sent again
+     * after a resume; not a control message.
+     * 
+     * @return Result.
+     */
+    public boolean isReplayable() {
+	return replayable;
+    }
+
+}
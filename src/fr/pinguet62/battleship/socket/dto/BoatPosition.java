@@ -3,16 +3,17 @@ package fr.pinguet62.battleship.socket.dto;
 import java.io.Serializable;
 
 import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.battleship.model.boat.BoatType;
 import fr.pinguet62.battleship.model.grid.Coordinates;
 
-/** Store first and last {@link Coordinates} of a {@link Boat} class. */
+/** Store first and last {@link Coordinates} of a {@link BoatType}. */
 public final class BoatPosition implements Serializable {
 
     /** Serial version UID. */
     private static final long serialVersionUID = -4451370187604640291L;
 
-    /** The {@link Boat} class. */
-    private final Class<? extends Boat> boatClass;
+    /** The identifier of {@link BoatType}. */
+    private final byte boatTypeId;
 
     /** The first {@link Coordinates} of {@link Boat}. */
     private final Coordinates firstCoordinate;
@@ -23,26 +24,27 @@ public final class BoatPosition implements Serializable {
     /**
      * Constructor.
      * 
-     * @param boatClass
-     *            The {@link Boat} class.
+     * @param boatType
+     *            The {@link BoatType}.
      * @param firstCoordinate
      *            The first {@link Coordinates} of {@link Boat}.
      * @param lastCoordinate
+     *            The last {@link Coordinates} of {@link Boat}.
      */
-    public BoatPosition(final Class<? extends Boat> boatClass,
+    public BoatPosition(final BoatType boatType,
 	    final Coordinates firstCoordinate, final Coordinates lastCoordinate) {
-	this.boatClass = boatClass;
+	boatTypeId = boatType.getId();
 	this.firstCoordinate = firstCoordinate;
 	this.lastCoordinate = lastCoordinate;
     }
 
     /**
-     * Gets the {@link Boat} class.
+     * Gets the {@link BoatType}.
      * 
-     * @return The {@link Boat} class.
+     * @return The {@link BoatType}.
      */
-    public Class<? extends Boat> getBoatClass() {
-	return boatClass;
+    public BoatType getBoatType() {
+	return BoatType.getById(boatTypeId);
     }
 
     /**
@@ -65,9 +67,8 @@ public final class BoatPosition implements Serializable {
 
     @Override
     public String toString() {
-	Boat boat = Boat.getInstance(boatClass);
-	return String.format("%s - %s to %s", boat.getName(), firstCoordinate,
-		lastCoordinate);
+	return String.format("%s - %s to %s", getBoatType().getName(),
+		firstCoordinate, lastCoordinate);
     }
 
 }
@@ -1,22 +1,24 @@
 package fr.pinguet62.battleship.socket.dto;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 
-import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.battleship.model.boat.BoatType;
 
 /** Parameters of the game, sent to guest player. */
 public final class ParametersDto implements Serializable {
 
-    /** A {@link Boat} class with its number. */
+    /** A {@link BoatType} with its number. */
     public static class BoatEntry implements Serializable {
 
 	/** Serial version UID. */
 	private static final long serialVersionUID = -2669863508918008318L;
 
-	/** The {@link Boat} class. */
-	private final Class<? extends Boat> boatClass;
+	/** The identifier of {@link BoatType}. */
+	private final byte boatTypeId;
 
 	/** The number. */
 	private final int number;
@@ -24,25 +26,25 @@ public final class ParametersDto implements Serializable {
 	/**
 	 * Constructor.
 	 * 
-	 * @param boatClass
-	 *            The {@link Boat} class.
+	 * @param boatType
+	 *            The {@link BoatType}.
 	 * @param number
 	 *            The number.
 	 */
-	public BoatEntry(final Class<? extends Boat> boatClass, final int number) {
+	public BoatEntry(final BoatType boatType, final int number) {
 	    if (number < 0)
 		throw new IllegalArgumentException("Number can't be negative.");
-	    this.boatClass = boatClass;
+	    boatTypeId = boatType.getId();
 	    this.number = number;
 	}
 
 	/**
-	 * Gets the {@link Boat} class.
+	 * Gets the {@link BoatType}.
 	 * 
-	 * @return The {@link Boat} class.
+	 * @return The {@link BoatType}.
 	 */
-	public Class<? extends Boat> getBoatClass() {
-	    return boatClass;
+	public BoatType getBoatType() {
+	    return BoatType.getById(boatTypeId);
 	}
 
 	/**
@@ -61,37 +63,131 @@ public final class ParametersDto implements Serializable {
 	 */
 	@Override
 	public String toString() {
-	    return String.format("%d %s", number, Boat.getInstance(boatClass)
-		    .getName());
+	    return String.format("%d %s", number, getBoatType().getName());
 	}
 
     }
 
+    /**
+     * The {@link #getSalvo() salvo} of one shot per surviving
+     * {@link fr.pinguet62.battleship.model.boat.Boat} of the attacker.
+     */
+    public static final int SALVO_PER_BOAT = 0;
+
     /** Serial version UID. */
     private static final long serialVersionUID = -6954668071575915013L;
 
+    /**
+     * Gets the {@link ParametersDto} of a standard game: 10x10 grid, one boat
+     * of each {@link BoatType}, the host plays first.
+     * 
+     * @return The {@link ParametersDto}.
+     */
+    public static ParametersDto getStandard() {
+	Collection<BoatEntry> boatEntries = new ArrayList<>();
+	for (BoatType boatType : BoatType.values())
+	    boatEntries.add(new BoatEntry(boatType, 1));
+	return new ParametersDto(10, 10, boatEntries);
+    }
+
     /** The {@link BoatEntry}s. */
     private final Collection<BoatEntry> boatEntries;
 
+    /**
+     * If the {@link fr.pinguet62.battleship.model.PlayerType#GUEST} plays
+     * first.
+     */
+    private final boolean guestFirst;
+
     /** The height. */
     private final int height;
 
+    /** The number of shots per turn, {@link #SALVO_PER_BOAT} if variable. */
+    private final int salvo;
+
     /** The width. */
     private final int width;
 
     /**
-     * Constructor.
+     * Constructor.<br />
+     * The host plays first.
      * 
      * @param width
      *            The width.
      * @param height
      *            The height.
+     * @param boatEntries
+     *            The {@link BoatEntry}s.
      */
     public ParametersDto(final int width, final int height,
 	    final Collection<BoatEntry> boatEntries) {
+	this(width, height, boatEntries, false);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param width
+     *            The width.
+     * @param height
+     *            The height.
+     * @param boatEntries
+     *            The {@link BoatEntry}s.
+     * @param guestFirst
+     *            If the guest plays first.
+     */
+    public ParametersDto(final int width, final int height,
+	    final Collection<BoatEntry> boatEntries, final boolean guestFirst) {
+	this(width, height, boatEntries, guestFirst, 1);
+    }
+
+    /**
+     * Constructor of a salvo game.
+     * 
+     * @param width
+     *            The width.
+     * @param height
+     *            The height.
+     * @param boatEntries
+     *            The {@link BoatEntry}s.
+     * @param guestFirst
+     *            If the guest plays first.
+     * @param salvo
+     *            The number of shots per turn, or {@link #SALVO_PER_BOAT}.
+     * @throws IllegalArgumentException
+     *             Negative salvo.
+     */
+    public ParametersDto(final int width, final int height,
+	    final Collection<BoatEntry> boatEntries, final boolean guestFirst,
+	    final int salvo) {
+	if (salvo < 0)
+	    throw new IllegalArgumentException("Salvo can't be negative.");
 	this.width = width;
 	this.height = height;
 	this.boatEntries = boatEntries;
+	this.guestFirst = guestFirst;
+	this.salvo = salvo;
+    }
+
+    /**
+     * Tests if equal: same size of grid, same order of players, same salvo,
+     * and same number of each {@link BoatType}, whatever the order of
+     * {@link BoatEntry}s.
+     * 
+     * @param object
+     *            The other object.
+     * @return Result.
+     */
+    @Override
+    public boolean equals(final Object object) {
+	if (this == object)
+	    return true;
+	if (!(object instanceof ParametersDto))
+	    return false;
+	ParametersDto other = (ParametersDto) object;
+	return (width == other.width) && (height == other.height)
+		&& (guestFirst == other.guestFirst) && (salvo == other.salvo)
+		&& Arrays.equals(getNumbers(), other.getNumbers());
     }
 
     /**
@@ -112,6 +208,55 @@ public final class ParametersDto implements Serializable {
 	return height;
     }
 
+    /**
+     * Gets the number of each {@link BoatType}, indexed by identifier.
+     * 
+     * @return The numbers.
+     */
+    private int[] getNumbers() {
+	int[] numbers = new int[BoatType.values().length];
+	for (BoatEntry boatEntry : boatEntries)
+	    numbers[boatEntry.getBoatType().getId()] += boatEntry.getNumber();
+	return numbers;
+    }
+
+    /**
+     * Gets the number of shots per turn.
+     * 
+     * @return The number of shots, 1 if not {@link #isSalvo()}, or
+     *         {@link #SALVO_PER_BOAT}.
+     */
+    public int getSalvo() {
+	return salvo;
+    }
+
+    @Override
+    public int hashCode() {
+	int hash = (31 * width) + height;
+	hash = (31 * hash) + Boolean.hashCode(guestFirst);
+	hash = (31 * hash) + salvo;
+	return (31 * hash) + Arrays.hashCode(getNumbers());
+    }
+
+    /**
+     * Tests if the guest plays first.
+     * 
+     * @return Result.
+     */
+    public boolean isGuestFirst() {
+	return guestFirst;
+    }
+
+    /**
+     * Tests if a salvo game: the shots of a turn are sent together, into a
+     * {@link SalvoDto}, instead of one {@link AttackDto}.
+     * 
+     * @return Result.
+     */
+    public boolean isSalvo() {
+	return salvo != 1;
+    }
+
     /**
      * Gets the width.
      * 
@@ -132,7 +277,8 @@ public final class ParametersDto implements Serializable {
 	    else
 		sBuilder.append("]");
 	}
-	return String.format("width=%d, height=%d, boatEntries=%s", width,
-		height, sBuilder.toString());
+	return String.format(
+		"width=%d, height=%d, boatEntries=%s, guestFirst=%b, salvo=%d",
+		width, height, sBuilder.toString(), guestFirst, salvo);
     }
 }
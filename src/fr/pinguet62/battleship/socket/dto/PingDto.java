@@ -0,0 +1,41 @@
+package fr.pinguet62.battleship.socket.dto;
+
+import java.io.Serializable;
+
+/**
+ * Heartbeat sent periodically to opponent, who answers by a {@link PongDto}
+ * with the same timestamp.
+ */
+public class PingDto implements Serializable {
+
+    /** Serial version UID. */
+    private static final long serialVersionUID = 3418620755014286527L;
+
+    /** The timestamp of the sender, from {@link System#nanoTime()}. */
+    private final long timestamp;
+
+    /**
+     * Constructor.
+     * 
+     * @param timestamp
+     *            The timestamp of the sender, from {@link System#nanoTime()}.
+     */
+    public PingDto(final long timestamp) {
+	this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the timestamp of the sender.
+     * 
+     * @return The timestamp, from {@link System#nanoTime()}.
+     */
+    public long getTimestamp() {
+	return timestamp;
+    }
+
+    @Override
+    public String toString() {
+	return "Ping[" + timestamp + "]";
+    }
+
+}
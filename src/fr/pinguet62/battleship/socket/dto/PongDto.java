@@ -0,0 +1,42 @@
+package fr.pinguet62.battleship.socket.dto;
+
+import java.io.Serializable;
+
+/**
+ * Answer to a {@link PingDto}, with its timestamp.<br />
+ * The sender of the {@link PingDto} measures the round-trip time.
+ */
+public class PongDto implements Serializable {
+
+    /** Serial version UID. */
+    private static final long serialVersionUID = -5871372608842209674L;
+
+    /** The timestamp of the {@link PingDto}. */
+    private final long timestamp;
+
+    /**
+     * Constructor.
+     * 
+     * @param timestamp
+     *            The timestamp of the {@link PingDto}.
+     */
+    public PongDto(final long timestamp) {
+	this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the timestamp of the {@link PingDto}.
+     * 
+     * @return The timestamp, from {@link System#nanoTime()} of the sender of
+     *         the {@link PingDto}.
+     */
+    public long getTimestamp() {
+	return timestamp;
+    }
+
+    @Override
+    public String toString() {
+	return "Pong[" + timestamp + "]";
+    }
+
+}
@@ -6,9 +6,17 @@ import java.util.Iterator;
 
 import fr.pinguet62.battleship.model.boat.Boat;
 
-/** Store positions of {@link Boat}s. */
+/**
+ * Store positions of {@link Boat}s.<br />
+ * A large fleet is sent in several {@link PositionsDto}s of at most
+ * {@link #CHUNK_SIZE} {@link BoatPosition}s: the receiver knows the total
+ * number of {@link Boat}s by the {@link ParametersDto}.
+ */
 public final class PositionsDto implements Serializable {
 
+    /** The maximal number of {@link BoatPosition}s of a sent chunk. */
+    public static final int CHUNK_SIZE = 1024;
+
     /** Serial version UID. */
     private static final long serialVersionUID = -9107150373490492463L;
 
@@ -0,0 +1,58 @@
+package fr.pinguet62.battleship.socket.dto;
+
+import java.io.Serializable;
+
+/**
+ * Store informations to resume a session after a dropped connection.<br />
+ * Sent by both players, first on the new connection: each one then sends again
+ * only the messages not received by the opponent.
+ */
+public class ResumeDto implements Serializable {
+
+    /** Serial version UID. */
+    private static final long serialVersionUID = 6917785021934471108L;
+
+    /** The number of messages received since the start of the session. */
+    private final long received;
+
+    /** The token of the session. */
+    private final long token;
+
+    /**
+     * Constructor.
+     * 
+     * @param token
+     *            The token of the session.
+     * @param received
+     *            The number of messages received since the start of the
+     *            session.
+     */
+    public ResumeDto(final long token, final long received) {
+	this.token = token;
+	this.received = received;
+    }
+
+    /**
+     * Gets the number of messages received since the start of the session.
+     * 
+     * @return The number of messages.
+     */
+    public long getReceived() {
+	return received;
+    }
+
+    /**
+     * Gets the token of the session.
+     * 
+     * @return The token of the session.
+     */
+    public long getToken() {
+	return token;
+    }
+
+    @Override
+    public String toString() {
+	return String.format("Resume[%016x, received=%d]", token, received);
+    }
+
+}
@@ -0,0 +1,52 @@
+package fr.pinguet62.battleship.socket.dto;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.List;
+
+import fr.pinguet62.battleship.model.grid.Coordinates;
+
+/**
+ * Store the shots of a salvo: all attacks of a turn, in one message.<br />
+ * Sent to opponent player, when {@link ParametersDto#isSalvo()}.
+ */
+public final class SalvoDto implements Serializable {
+
+    /** Serial version UID. */
+    private static final long serialVersionUID = 2817734521068846931L;
+
+    /** The attacked {@link Coordinates}, in order. */
+    private final List<Coordinates> coordinates;
+
+    /**
+     * Constructor.
+     * 
+     * @param coordinates
+     *            The attacked {@link Coordinates}, in order.
+     */
+    public SalvoDto(final List<Coordinates> coordinates) {
+	this.coordinates = coordinates;
+    }
+
+    /**
+     * Gets the attacked {@link Coordinates}.
+     * 
+     * @return The {@link Coordinates}, in order.
+     */
+    public List<Coordinates> getCoordinates() {
+	return coordinates;
+    }
+
+    @Override
+    public String toString() {
+	StringBuilder sBuilder = new StringBuilder("[");
+	for (Iterator<Coordinates> it = coordinates.iterator(); it.hasNext();) {
+	    sBuilder.append(it.next().toString());
+	    if (it.hasNext())
+		sBuilder.append(", ");
+	}
+	sBuilder.append("]");
+	return sBuilder.toString();
+    }
+
+}
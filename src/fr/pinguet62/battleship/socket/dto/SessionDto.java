@@ -0,0 +1,42 @@
+package fr.pinguet62.battleship.socket.dto;
+
+import java.io.Serializable;
+
+/**
+ * Store the token of the session, issued by the host at connection.<br />
+ * Sent to guest, before any other message. The token identifies the session
+ * when the guest reconnects: see {@link ResumeDto}.
+ */
+public class SessionDto implements Serializable {
+
+    /** Serial version UID. */
+    private static final long serialVersionUID = -2160924950331683512L;
+
+    /** The token of the session. */
+    private final long token;
+
+    /**
+     * Constructor.
+     * 
+     * @param token
+     *            The token of the session.
+     */
+    public SessionDto(final long token) {
+	this.token = token;
+    }
+
+    /**
+     * Gets the token of the session.
+     * 
+     * @return The token of the session.
+     */
+    public long getToken() {
+	return token;
+    }
+
+    @Override
+    public String toString() {
+	return String.format("Session[%016x]", token);
+    }
+
+}
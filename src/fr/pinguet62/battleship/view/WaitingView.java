@@ -8,6 +8,9 @@ public final class WaitingView extends Frame {
     /** Serial version UID. */
     private static final long serialVersionUID = 8730244299577968556L;
 
+    /** The {@link JLabel} of the message. */
+    private final JLabel jLabel;
+
     /**
      * Constructor.
      * 
@@ -17,10 +20,21 @@ public final class WaitingView extends Frame {
     public WaitingView(final String message) {
 	super("Waiting...");
 
-	JLabel jLabel = new JLabel(message);
+	jLabel = new JLabel(message);
 	add(jLabel);
 
 	setVisible(true);
     }
 
+    /**
+     * Sets the message, for example a progress.
+     * 
+     * @param message
+     *            The message to show to user.
+     */
+    public void setMessage(final String message) {
+	jLabel.setText(message);
+	pack();
+    }
+
 }
@@ -16,7 +16,8 @@ public final class BoxView extends JButton {
     public static enum State {
 
 	/** Attack was out of {@link Boat}. */
-	FAILED(Color.BLACK), /** The attack touched a {@link Boat}. */
+	FAILED(Color.BLACK), /** Selected for the next salvo. */
+	SELECTED(Color.ORANGE), /** The attack touched a {@link Boat}. */
 	TOUCHED(Color.RED), /** Not attack in this {@link BoxView}. */
 	WATER(Color.BLUE);
 
@@ -86,13 +87,14 @@ public final class BoxView extends JButton {
     }
 
     /**
-     * Sets the {@link State}.
+     * Sets the {@link State}.<br />
+     * Disabled once attacked.
      * 
      * @param state
      *            The {@link State}.
      */
     public void setState(final State state) {
-	setEnabled(state.equals(State.WATER));
+	setEnabled(state.equals(State.WATER) || state.equals(State.SELECTED));
 	this.state = state;
 	setBackground(state.getColor());
     }
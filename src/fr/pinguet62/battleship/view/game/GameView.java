@@ -3,26 +3,51 @@ package fr.pinguet62.battleship.view.game;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.BoxLayout;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import fr.pinguet62.battleship.model.Game;
+import fr.pinguet62.battleship.model.GameEngine;
+import fr.pinguet62.battleship.model.PlayerType;
 import fr.pinguet62.battleship.model.Score;
 import fr.pinguet62.battleship.model.grid.Box.AttackResult;
 import fr.pinguet62.battleship.model.grid.Coordinates;
+import fr.pinguet62.battleship.model.grid.Fleet.Snapshot;
 import fr.pinguet62.battleship.socket.dto.AttackDto;
+import fr.pinguet62.battleship.socket.dto.SalvoDto;
 import fr.pinguet62.battleship.view.Frame;
 import fr.pinguet62.battleship.view.game.BoxView.State;
 
-/** Duel view. */
+/**
+ * Duel view.<br />
+ * In a salvo game, the clicked {@link BoxView}s are selected until the number
+ * of shots of the turn, then sent together into a {@link SalvoDto}.
+ */
 public final class GameView extends Frame implements ActionListener {
 
     /** Serial version UID. */
     private static final long serialVersionUID = -2190498449403789762L;
 
+    /**
+     * Gets the {@link State} of an attacked {@link BoxView}.
+     * 
+     * @param attackResult
+     *            The {@link AttackResult}.
+     * @return The {@link State}.
+     */
+    private static State getState(final AttackResult attackResult) {
+	return attackResult.equals(AttackResult.FAILED) ? State.FAILED
+		: State.TOUCHED;
+    }
+
     private final JLabel boatScoreHeaderMyfleet;
 
     private final JLabel boatScoreHeaderOpponentfleet;
@@ -37,12 +62,22 @@ public final class GameView extends Frame implements ActionListener {
     /** {@link BoxView} of my fleet. */
     private final BoxView[][] myBoxViewss;
 
+    /** The {@link CompletableFuture} of my last sent move. */
+    private volatile CompletableFuture<Void> lastSent = CompletableFuture
+	    .completedFuture(null);
+
     /** If it my turn to play. */
-    private boolean myTurn;
+    private final AtomicBoolean myTurn;
 
     /** {@link BoxView} of he opponent. */
     private final BoxView[][] opponentBoxViewss;
 
+    /** The selected {@link BoxView}s of the next salvo. */
+    private final List<BoxView> salvo = new ArrayList<>();
+
+    /** The number of shots of my next salvo. */
+    private int shots;
+
     /**
      * Constructor.
      * 
@@ -53,28 +88,9 @@ public final class GameView extends Frame implements ActionListener {
 	super("Battleship");
 
 	this.game = game;
-	myTurn = game.getPlayerType().isHost();
-	game.getSocketManager()
-		.setOnAttackReceivedListener(
-			(attackDto) -> {
-			    /** {@link AttackDto} received. */
-			    Coordinates coordinates = attackDto
-				    .getCoordinates();
-
-			    // Update my fleet
-			    AttackResult attackResult = game.getMyFleet()
-				    .getBox(coordinates).attack();
-			    State newState = attackResult
-				    .equals(AttackResult.FAILED) ? State.FAILED
-				    : State.TOUCHED;
-			    myBoxViewss[coordinates.getY()][coordinates.getX()]
-				    .setState(newState);
-
-			    updateScores();
-
-			    myTurn = true;
-			});
-
+	myTurn = new AtomicBoolean(game.getEngine().getTurn()
+		.equals(game.getPlayerType()));
+	shots = game.getEngine().getShots(game.getPlayerType());
 	// Layout
 	setLayout(new GridLayout(1, 2, 5, 0));
 
@@ -110,7 +126,8 @@ public final class GameView extends Frame implements ActionListener {
 	opponentBoxViewss = new BoxView[game.getHeight()][game.getWidth()];
 	for (int y = 0; y < game.getHeight(); y++)
 	    for (int x = 0; x < game.getWidth(); x++) {
-		BoxView button = new BoxView(new Coordinates(x, y));
+		BoxView button = new BoxView(game.getCoordinatesCache().get(
+			x, y));
 		button.addActionListener(this);
 		gridFleetPanel.add(button);
 		opponentBoxViewss[y][x] = button;
@@ -147,74 +164,220 @@ public final class GameView extends Frame implements ActionListener {
 	myBoxViewss = new BoxView[game.getHeight()][game.getWidth()];
 	for (int y = 0; y < game.getHeight(); y++)
 	    for (int x = 0; x < game.getWidth(); x++) {
-		BoxView button = new BoxView(new Coordinates(x, y));
+		BoxView button = new BoxView(game.getCoordinatesCache().get(
+			x, y));
 		button.setEnabled(false);
 		gridOpponenPanel.add(button);
 		myBoxViewss[y][x] = button;
 	    }
 
+	// Attack reception
+	game.getSocketManager().setOnAttackReceivedListener(
+		(attackDto) -> {
+		    /** {@link AttackDto} received. */
+		    Coordinates coordinates = attackDto.getCoordinates();
+
+		    // Update my fleet
+		    AttackResult attackResult;
+		    try {
+			attackResult = game.getEngine().attack(
+				GameEngine.getOpponent(game.getPlayerType()),
+				coordinates);
+		    } catch (IllegalArgumentException
+			    | IllegalStateException exception) {
+			endInvalid(exception);
+			return;
+		    }
+
+		    SwingUtilities.invokeLater(() -> {
+			myBoxViewss[coordinates.getY()][coordinates.getX()]
+				.setState(GameView.getState(attackResult));
+			updateScores();
+			myTurn.set(true);
+		    });
+		});
+	// Salvo reception
+	game.getSocketManager().setOnSalvoReceivedListener(
+		(salvoDto) -> {
+		    /** {@link SalvoDto} received. */
+		    List<Coordinates> coordinates = salvoDto.getCoordinates();
+
+		    // Update my fleet
+		    AttackResult[] attackResults;
+		    try {
+			attackResults = game.getEngine().salvo(
+				GameEngine.getOpponent(game.getPlayerType()),
+				coordinates);
+		    } catch (IllegalArgumentException
+			    | IllegalStateException exception) {
+			endInvalid(exception);
+			return;
+		    }
+		    int nextShots = game.getEngine().getShots(
+			    game.getPlayerType());
+
+		    SwingUtilities.invokeLater(() -> {
+			for (int i = 0; i < attackResults.length; i++) {
+			    Coordinates shot = coordinates.get(i);
+			    myBoxViewss[shot.getY()][shot.getX()]
+				    .setState(GameView
+					    .getState(attackResults[i]));
+			}
+			shots = nextShots;
+			updateScores();
+			myTurn.set(true);
+		    });
+		});
+
 	updateScores();
 	setVisible(true);
     }
 
     /**
-     * Click on a {@link BoxView}.
+     * Click on a {@link BoxView}.<br />
+     * The attack is applied by the
+     * {@link fr.pinguet62.battleship.model.GameEventLoop}.
      * 
      * @param event
      *            The {@link ActionEvent} with the {@link BoxView} source.
      */
     @Override
     public void actionPerformed(final ActionEvent event) {
-	if (!myTurn)
+	BoxView boxView = (BoxView) event.getSource();
+	if (game.getEngine().getParameters().isSalvo()) {
+	    select(boxView);
+	    return;
+	}
+	if (!myTurn.compareAndSet(true, false))
 	    return;
 
 	// Update opponent fleet
-	BoxView boxView = (BoxView) event.getSource();
 	Coordinates coordinates = boxView.getCoordinates();
-	AttackResult attackResult = game.getOpponentFleet().getBox(coordinates)
-		.attack();
-	boxView.setState(attackResult.equals(AttackResult.FAILED) ? State.FAILED
-		: State.TOUCHED);
-
-	updateScores();
-
-	game.getSocketManager().send(new AttackDto(coordinates));
+	game.getEventLoop().submit(
+		() -> {
+		    AttackResult attackResult = game.getEngine().attack(
+			    game.getPlayerType(), coordinates);
+		    endIfNotSent(game.getSocketManager().send(
+			    new AttackDto(coordinates)));
 
-	myTurn = false;
+		    SwingUtilities.invokeLater(() -> {
+			boxView.setState(GameView.getState(attackResult));
+			updateScores();
+		    });
+		});
     }
 
     /**
-     * Show result and quit game.
+     * Show result and quit game, once.<br />
+     * The connection is closed after my last move is sent.
      * 
      * @param message
      *            The message to show.
      */
     private void end(final String message) {
+	if (!isDisplayable())
+	    return;
 	dispose();
 	JOptionPane.showMessageDialog(this, message, "End",
 		JOptionPane.INFORMATION_MESSAGE);
-	game.getSocketManager().stop();
+	lastSent.whenComplete((nothing, exception) -> game.getSocketManager()
+		.stop());
     }
 
-    /** Update {@link Score} of 2 players. */
+    /**
+     * End the game after an invalid move of the opponent, refused by the
+     * {@link GameEngine}: no turn would be active on either side.
+     * 
+     * @param exception
+     *            The error of the {@link GameEngine}.
+     */
+    private void endInvalid(final RuntimeException exception) {
+	SwingUtilities.invokeLater(() -> end("Invalid move of opponent: "
+		+ exception.getMessage()));
+    }
+
+    /**
+     * End the game if a move is not sent: already applied to my
+     * {@link Game}, never received by the opponent, both {@link Game}s would
+     * diverge.<br />
+     * The move is kept as my last sent move.
+     * 
+     * @param sent
+     *            The {@link CompletableFuture} of the sent move.
+     */
+    private void endIfNotSent(final CompletableFuture<Void> sent) {
+	lastSent = sent;
+	sent.whenComplete((nothing, exception) -> {
+	    if (exception != null)
+		SwingUtilities.invokeLater(() -> end("Connection lost: "
+			+ exception.getMessage()));
+	});
+    }
+
+    /**
+     * Select or unselect a {@link BoxView} of the next salvo.<br />
+     * When the number of shots of the turn is selected, the salvo is applied
+     * by the {@link fr.pinguet62.battleship.model.GameEventLoop} and sent.
+     * 
+     * @param boxView
+     *            The clicked {@link BoxView}.
+     */
+    private void select(final BoxView boxView) {
+	if (!myTurn.get())
+	    return;
+	if (boxView.getState().equals(State.SELECTED)) {
+	    boxView.setState(State.WATER);
+	    salvo.remove(boxView);
+	    return;
+	}
+	boxView.setState(State.SELECTED);
+	salvo.add(boxView);
+	if ((salvo.size() < shots) || !myTurn.compareAndSet(true, false))
+	    return;
+
+	// Update opponent fleet
+	List<BoxView> boxViews = new ArrayList<>(salvo);
+	salvo.clear();
+	List<Coordinates> coordinates = new ArrayList<>(boxViews.size());
+	for (BoxView selected : boxViews)
+	    coordinates.add(selected.getCoordinates());
+	game.getEventLoop().submit(
+		() -> {
+		    AttackResult[] attackResults = game.getEngine().salvo(
+			    game.getPlayerType(), coordinates);
+		    endIfNotSent(game.getSocketManager().send(
+			    new SalvoDto(coordinates)));
+
+		    SwingUtilities.invokeLater(() -> {
+			for (int i = 0; i < attackResults.length; i++)
+			    boxViews.get(i).setState(
+				    GameView.getState(attackResults[i]));
+			updateScores();
+		    });
+		});
+    }
+
+    /** Update {@link Score} of 2 players, and end if the game is over. */
     private void updateScores() {
-	Score opponentScore = game.getOpponentFleet().getScore();
+	Snapshot opponentSnapshot = game.getOpponentFleet().getSnapshot();
+	Score opponentScore = opponentSnapshot.getScore();
 	boxScoreHeaderOpponentfleet.setText(String.format("Box : %d/%d",
 		opponentScore.getActual(), opponentScore.getTotal()));
-	boatScoreHeaderOpponentfleet.setText("");
-	if (opponentScore.isWin()) {
-	    end("Winner!");
-	    return;
-	}
+	Score opponentBoatScore = opponentSnapshot.getBoatScore();
+	boatScoreHeaderOpponentfleet.setText(String.format("Boat : %d/%d",
+		opponentBoatScore.getActual(), opponentBoatScore.getTotal()));
 
-	Score myScore = game.getMyFleet().getScore();
+	Snapshot mySnapshot = game.getMyFleet().getSnapshot();
+	Score myScore = mySnapshot.getScore();
 	boxScoreHeaderMyfleet.setText(String.format("Box : %d/%d",
 		myScore.getActual(), myScore.getTotal()));
-	boatScoreHeaderMyfleet.setText("");
-	if (myScore.isWin()) {
-	    end("Looser!");
-	    return;
-	}
+	Score myBoatScore = mySnapshot.getBoatScore();
+	boatScoreHeaderMyfleet.setText(String.format("Boat : %d/%d",
+		myBoatScore.getActual(), myBoatScore.getTotal()));
+
+	PlayerType winner = game.getEngine().getWinner();
+	if (winner != null)
+	    end(winner.equals(game.getPlayerType()) ? "Winner!" : "Looser!");
     }
 
 }
@@ -3,35 +3,35 @@ package fr.pinguet62.battleship.view.parameters;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
 
-import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.battleship.model.boat.BoatType;
 
-/** {@link JSpinner} where user can choose the number of a {@link Boat} type. */
-public final class BoatClassSpinner extends JSpinner {
+/** {@link JSpinner} where user can choose the number of a {@link BoatType}. */
+public final class BoatTypeSpinner extends JSpinner {
 
     /** Serial version UID. */
     private static final long serialVersionUID = 692931075920605484L;
 
-    /** The {@link Boat} class. */
-    private final Class<? extends Boat> boatClass;
+    /** The {@link BoatType}. */
+    private final BoatType boatType;
 
     /**
      * Constructor.
      * 
-     * @param boatClass
-     *            The {@link Boat} class.
+     * @param boatType
+     *            The {@link BoatType}.
      */
-    public BoatClassSpinner(final Class<? extends Boat> boatClass) {
+    public BoatTypeSpinner(final BoatType boatType) {
 	super(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1));
-	this.boatClass = boatClass;
+	this.boatType = boatType;
     }
 
     /**
-     * Gets the {@link Boat} class.
+     * Gets the {@link BoatType}.
      * 
-     * @return The {@link Boat} class.
+     * @return The {@link BoatType}.
      */
-    public Class<? extends Boat> getBoatClass() {
-	return boatClass;
+    public BoatType getBoatType() {
+	return boatType;
     }
 
     /**
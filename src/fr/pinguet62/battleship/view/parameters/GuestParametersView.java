@@ -9,6 +9,7 @@ import java.net.UnknownHostException;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -16,10 +17,13 @@ import javax.swing.JPanel;
 import javax.swing.JSpinner;
 import javax.swing.JTextField;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
 
 import fr.pinguet62.battleship.model.Game;
 import fr.pinguet62.battleship.model.PlayerType;
+import fr.pinguet62.battleship.socket.GuestSocketManager;
 import fr.pinguet62.battleship.socket.SocketException;
+import fr.pinguet62.battleship.socket.dto.ParametersDto;
 import fr.pinguet62.battleship.view.Frame;
 import fr.pinguet62.battleship.view.WaitingView;
 import fr.pinguet62.battleship.view.positioning.FleetPositioningView;
@@ -41,7 +45,7 @@ public final class GuestParametersView extends Frame {
 	// - Server
 	JPanel serverPanel = new JPanel();
 	serverPanel.setBorder(BorderFactory.createTitledBorder("Server"));
-	serverPanel.setLayout(new GridLayout(2, 2));
+	serverPanel.setLayout(new GridLayout(3, 2));
 	add(serverPanel);
 	// -- IP
 	// --- Title
@@ -62,6 +66,13 @@ public final class GuestParametersView extends Frame {
 	final JSpinner portValue = new JSpinner(new SpinnerNumberModel(49152,
 		1, 65535, 1));
 	serverPanel.add(portValue);
+	// -- Lobby
+	// --- Title
+	JLabel lobbyTitle = new JLabel("Lobby (standard game)");
+	serverPanel.add(lobbyTitle);
+	// --- Value
+	final JCheckBox lobbyValue = new JCheckBox();
+	serverPanel.add(lobbyValue);
 	// - Button
 	JPanel buttonPanel = new JPanel();
 	buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.X_AXIS));
@@ -84,7 +95,11 @@ public final class GuestParametersView extends Frame {
 		}
 
 		// Game
-		final Game game = new Game(PlayerType.GUEST);
+		// Lobby server: the standard parameters are requested
+		final Game game = lobbyValue.isSelected() ? new Game(
+			PlayerType.GUEST, (lobbyGame) -> new GuestSocketManager(
+				lobbyGame, ParametersDto.getStandard()))
+			: new Game(PlayerType.GUEST);
 		game.getSocketManager().setInetAddress(inetAddress);
 		game.getSocketManager().setPort((int) portValue.getValue());
 		try {
@@ -112,10 +127,13 @@ public final class GuestParametersView extends Frame {
 
 							// Next view:
 							// FleetPositioningView
-							waitParametersView
-								.dispose();
-							new FleetPositioningView(
-								game);
+							SwingUtilities
+								.invokeLater(() -> {
+								    waitParametersView
+									    .dispose();
+								    new FleetPositioningView(
+									    game);
+								});
 						    });
 				});
 		} catch (SocketException exception) {
@@ -3,26 +3,23 @@ package fr.pinguet62.battleship.view.parameters;
 import java.awt.GridLayout;
 import java.net.Socket;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashSet;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
 
 import fr.pinguet62.battleship.model.Game;
 import fr.pinguet62.battleship.model.PlayerType;
-import fr.pinguet62.battleship.model.boat.AircraftCarrier;
 import fr.pinguet62.battleship.model.boat.Boat;
-import fr.pinguet62.battleship.model.boat.Cruiser;
-import fr.pinguet62.battleship.model.boat.Destroyer;
-import fr.pinguet62.battleship.model.boat.Submarine;
-import fr.pinguet62.battleship.model.boat.TorpedoBoat;
+import fr.pinguet62.battleship.model.boat.BoatType;
+import fr.pinguet62.battleship.socket.codec.MessageDecoder;
 import fr.pinguet62.battleship.socket.dto.ParametersDto;
 import fr.pinguet62.battleship.socket.dto.ParametersDto.BoatEntry;
 import fr.pinguet62.battleship.view.Frame;
@@ -30,21 +27,16 @@ import fr.pinguet62.battleship.view.WaitingView;
 import fr.pinguet62.battleship.view.positioning.FleetPositioningView;
 
 /**
- * View where host chose port of the {@link Socket}, the size of grid, and
- * {@link Boat} types with the number.
+ * View where host chose port of the {@link Socket}, the size of grid, the
+ * number of shots per turn, and {@link Boat} types with the number.
  */
 public final class HostParametersView extends Frame {
 
     /** Serial version UID. */
     private static final long serialVersionUID = -7022220519762450381L;
 
-    /** The available {@link Boat} types. */
-    private final Collection<Class<? extends Boat>> boatClasses = new LinkedHashSet<>(
-	    Arrays.asList(AircraftCarrier.class, Cruiser.class,
-		    Destroyer.class, Submarine.class, TorpedoBoat.class));
-
-    /** The {@link BoatClassSpinner}s. */
-    private final Collection<BoatClassSpinner> boatClassSpinners = new ArrayList<>();
+    /** The {@link BoatTypeSpinner}s. */
+    private final Collection<BoatTypeSpinner> boatTypeSpinners = new ArrayList<>();
 
     /** Constructor. */
     public HostParametersView() {
@@ -85,21 +77,32 @@ public final class HostParametersView extends Frame {
 	final JSpinner valueHeightSize = new JSpinner(new SpinnerNumberModel(
 		10, 1, Integer.MAX_VALUE, 1));
 	sizePanel.add(valueHeightSize);
+	// - Salvo
+	JPanel salvoPanel = new JPanel();
+	salvoPanel.setBorder(BorderFactory.createTitledBorder("Salvo"));
+	salvoPanel.setLayout(new GridLayout(1, 2));
+	add(salvoPanel);
+	// -- Title
+	JLabel salvoTitle = new JLabel("Shots per turn (0: per boat)");
+	salvoPanel.add(salvoTitle);
+	// -- Value
+	final JSpinner salvoValue = new JSpinner(new SpinnerNumberModel(1,
+		ParametersDto.SALVO_PER_BOAT, Integer.MAX_VALUE, 1));
+	salvoPanel.add(salvoValue);
 	// - Fleet
 	JPanel fleetPanel = new JPanel();
 	fleetPanel.setBorder(BorderFactory.createTitledBorder("Fleet"));
-	fleetPanel.setLayout(new GridLayout(boatClasses.size(), 2));
+	fleetPanel.setLayout(new GridLayout(BoatType.values().length, 2));
 	add(fleetPanel);
-	for (Class<? extends Boat> boatClass : boatClasses) {
+	for (BoatType boatType : BoatType.values()) {
 	    // Label
-	    Boat boat = Boat.getInstance(boatClass);
 	    JLabel nameBoatFleet = new JLabel(String.format("%s (x%d)",
-		    boat.getName(), boat.getSize()));
+		    boatType.getName(), boatType.getSize()));
 	    fleetPanel.add(nameBoatFleet);
 	    // Spinner
-	    BoatClassSpinner boatClassSpinner = new BoatClassSpinner(boatClass);
-	    boatClassSpinners.add(boatClassSpinner);
-	    fleetPanel.add(boatClassSpinner);
+	    BoatTypeSpinner boatTypeSpinner = new BoatTypeSpinner(boatType);
+	    boatTypeSpinners.add(boatTypeSpinner);
+	    fleetPanel.add(boatTypeSpinner);
 	}
 	// - Button
 	JPanel buttonPanel = new JPanel();
@@ -111,26 +114,33 @@ public final class HostParametersView extends Frame {
 	    /** Click on "Ok" button. */
 	    // Validation
 	    int nbBoats = 0;
-	    for (BoatClassSpinner boatClassSpinner : boatClassSpinners)
-		nbBoats += boatClassSpinner.getIntValue();
+	    for (BoatTypeSpinner boatTypeSpinner : boatTypeSpinners)
+		nbBoats += boatTypeSpinner.getIntValue();
 	    if (nbBoats == 0)
 		return;
+	    int width = (int) valueWidthSize.getValue();
+	    int height = (int) valueHeightSize.getValue();
+	    if (MessageDecoder.MAX_GRID_CELLS < ((long) width * height)) {
+		JOptionPane.showMessageDialog(this, "Grid too large.", "Error",
+			JOptionPane.ERROR_MESSAGE);
+		return;
+	    }
 
 	    // Boat entries
 	    Collection<BoatEntry> boatEntries = new ArrayList<>();
-	    for (BoatClassSpinner boatClassSpinner : boatClassSpinners) {
-		int number = boatClassSpinner.getIntValue();
+	    for (BoatTypeSpinner boatTypeSpinner : boatTypeSpinners) {
+		int number = boatTypeSpinner.getIntValue();
 		if (0 < number) {
-		    BoatEntry boatEntry = new BoatEntry(boatClassSpinner
-			    .getBoatClass(), boatClassSpinner.getIntValue());
+		    BoatEntry boatEntry = new BoatEntry(boatTypeSpinner
+			    .getBoatType(), boatTypeSpinner.getIntValue());
 		    boatEntries.add(boatEntry);
 		}
 	    }
 
 	    // Game initialization
 	    Game game = new Game(PlayerType.HOST);
-	    game.init(new ParametersDto((int) valueWidthSize.getValue(),
-		    (int) valueHeightSize.getValue(), boatEntries));
+	    game.init(new ParametersDto(width, height, boatEntries, false,
+		    (int) salvoValue.getValue()));
 
 	    // Next view: WaitingView
 	    dispose();
@@ -142,14 +152,15 @@ public final class HostParametersView extends Frame {
 	    game.getSocketManager().connect(() -> {
 		/** {@link Runnable} to execute after guest connection. */
 		// Send parameters to guest
-		    ParametersDto parameters = new ParametersDto(game
-			    .getWidth(), game.getHeight(), game
-			    .getBoatEntries());
+		    ParametersDto parameters = game.getEngine()
+			    .getParameters();
 		    game.getSocketManager().send(parameters);
 
 		    // Next view: FleetPositioningView
-		    waitConnexionView.dispose();
-		    new FleetPositioningView(game);
+		    SwingUtilities.invokeLater(() -> {
+			waitConnexionView.dispose();
+			new FleetPositioningView(game);
+		    });
 		});
 	});
 	buttonPanel.add(okButton);
@@ -3,6 +3,7 @@ package fr.pinguet62.battleship.view.positioning;
 import javax.swing.JButton;
 
 import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.battleship.model.boat.BoatType;
 
 /** A boat entry associate to a {@link Boat}. */
 public final class BoatView extends JButton {
@@ -10,35 +11,31 @@ public final class BoatView extends JButton {
     /** Serial version UID. */
     private static final long serialVersionUID = -334380936888307359L;
 
-    /** The {@link Boat} class. */
-    private final Class<? extends Boat> boatClass;
+    /** The {@link BoatType}. */
+    private final BoatType boatType;
 
     /** If the {@link Boat} is placed. */
     private boolean placed = false;
 
-    /** The {@link Boat} size. */
-    private final int boatSize;
-
     /**
      * Constructor.
      * 
-     * @param boatClass
-     *            The {@link Boat} class.
+     * @param boatType
+     *            The {@link BoatType}.
      */
-    public BoatView(final Class<? extends Boat> boatClass) {
-	this.boatClass = boatClass;
-	Boat boat = Boat.getInstance(boatClass);
-	setText(String.format("%s (x%d)", boat.getName(), boat.getSize()));
-	boatSize = boat.getSize();
+    public BoatView(final BoatType boatType) {
+	this.boatType = boatType;
+	setText(String.format("%s (x%d)", boatType.getName(),
+		boatType.getSize()));
     }
 
     /**
-     * Gets the {@link Boat} class.
+     * Gets the {@link BoatType}.
      * 
-     * @return The {@link Boat} class.
+     * @return The {@link BoatType}.
      */
-    public Class<? extends Boat> getBoatClass() {
-	return boatClass;
+    public BoatType getBoatType() {
+	return boatType;
     }
 
     /**
@@ -47,7 +44,7 @@ public final class BoatView extends JButton {
      * @return The {@link Boat} size.
      */
     public int getBoatSize() {
-	return boatSize;
+	return boatType.getSize();
     }
 
     /**
@@ -9,10 +9,13 @@ import java.util.Collection;
 import java.util.List;
 
 import javax.swing.BoxLayout;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import fr.pinguet62.battleship.model.Game;
 import fr.pinguet62.battleship.model.boat.Boat;
+import fr.pinguet62.battleship.model.boat.BoatType;
 import fr.pinguet62.battleship.model.grid.Coordinates;
 import fr.pinguet62.battleship.socket.dto.BoatPosition;
 import fr.pinguet62.battleship.socket.dto.ParametersDto.BoatEntry;
@@ -133,22 +136,42 @@ public final class FleetPositioningView extends Frame implements ActionListener
 	/** Method to execute after {@link PositionsDto} reception. */
 	(positionsDto) -> {
 	    // Update opponent fleet
-		for (BoatPosition boatPosition : positionsDto
-			.getBoatPositions()) {
-		    Class<? extends Boat> boatClass = boatPosition
-			    .getBoatClass();
-		    Coordinates first = boatPosition.getFirstCoordinate();
-		    Coordinates last = boatPosition.getLastCoordinate();
-		    game.getOpponentFleet().insertBoat(boatClass, first, last);
+		int loaded;
+		try {
+		    loaded = game.loadOpponentPositions(positionsDto);
+		} catch (IllegalArgumentException exception) {
+		    SwingUtilities.invokeLater(() -> {
+			dispose();
+			if (positionsWaitingView != null)
+			    positionsWaitingView.dispose();
+			JOptionPane.showMessageDialog(this,
+				"Invalid opponent positions.", "Error",
+				JOptionPane.ERROR_MESSAGE);
+			game.getSocketManager().stop();
+		    });
+		    return;
+		}
+		int total = game.getEngine().getTotalBoats();
+		if (loaded < total) {
+		    // Progress
+		    SwingUtilities.invokeLater(() -> {
+			if (positionsWaitingView != null)
+			    positionsWaitingView.setMessage(String.format(
+				    "Receiving opponent positions... %d/%d",
+				    loaded, total));
+		    });
+		    return;
 		}
 
-		opponentPositionsReceived = true;
+		SwingUtilities.invokeLater(() -> {
+		    opponentPositionsReceived = true;
 
-		// Next view: GameView
-		if (positionsWaitingView != null) {
-		    positionsWaitingView.dispose();
-		    new GameView(game);
-		}
+		    // Next view: GameView
+		    if (positionsWaitingView != null) {
+			positionsWaitingView.dispose();
+			new GameView(game);
+		    }
+		});
 	    });
 
 	// - Boats
@@ -157,7 +180,7 @@ public final class FleetPositioningView extends Frame implements ActionListener
 	add(boatsPanel);
 	for (BoatEntry boatEntry : game.getBoatEntries())
 	    for (int i = 0; i < boatEntry.getNumber(); i++) {
-		BoatView boatView = new BoatView(boatEntry.getBoatClass());
+		BoatView boatView = new BoatView(boatEntry.getBoatType());
 		boatView.addActionListener(
 		/** Click on a {@link BoatView} */
 		(event) -> {
@@ -179,7 +202,8 @@ public final class FleetPositioningView extends Frame implements ActionListener
 	casess = new SelectCase[game.getHeight()][game.getWidth()];
 	for (int y = 0; y < game.getHeight(); y++)
 	    for (int x = 0; x < game.getWidth(); x++) {
-		SelectCase button = new SelectCase(new Coordinates(x, y));
+		SelectCase button = new SelectCase(game.getCoordinatesCache()
+			.get(x, y));
 		button.addActionListener(this);
 		gridFleetPanel.add(button);
 		casess[y][x] = button;
@@ -209,15 +233,21 @@ public final class FleetPositioningView extends Frame implements ActionListener
 	// Boat placed
 	List<SelectCase> choosedCases = getSelectedCases(State.CHOOSED);
 	if (choosedCases.size() == selectedBoatView.getBoatSize()) {
-	    Class<? extends Boat> boatClass = selectedBoatView.getBoatClass();
+	    BoatType boatType = selectedBoatView.getBoatType();
 	    Coordinates first = choosedCases.get(0).getCoordinates();
 	    Coordinates last = choosedCases.get(choosedCases.size() - 1)
 		    .getCoordinates();
+	    if (!game.getMyFleet().canPlace(boatType, first, last)) {
+		for (SelectCase choosedCase : choosedCases)
+		    choosedCase.setState(State.SELECTABLE);
+		refresh();
+		return;
+	    }
 	    // Insert into my fleet
-	    game.getMyFleet().insertBoat(boatClass, first, last);
+	    game.getEngine().place(game.getPlayerType(), boatType, first, last);
 	    // Save BoatPosition
 	    myPositions.getBoatPositions().add(
-		    new BoatPosition(boatClass, first, last));
+		    new BoatPosition(boatType, first, last));
 
 	    // Refresh
 	    for (SelectCase choosedCase : choosedCases)
@@ -244,7 +274,7 @@ public final class FleetPositioningView extends Frame implements ActionListener
      * <p>
      * <ol>
      * <li>Hide this frame;</li>
-     * <li>Send {@link PositionsDto} to other player;</li>
+     * <li>Send {@link PositionsDto}s to other player, by chunks;</li>
      * <li>If user didn't received {@link PositionsDto} then show
      * {@link WaitingView}, else show {@link GameView}.</li>
      * </ol>
@@ -253,7 +283,8 @@ public final class FleetPositioningView extends Frame implements ActionListener
 	dispose();
 
 	// Send positions
-	game.getSocketManager().send(myPositions);
+	game.getSocketManager().sendPositions(myPositions.getBoatPositions(),
+		null);
 
 	// Next view: WaitingView if Positions not received, GameView otherwise
 	if (!opponentPositionsReceived)
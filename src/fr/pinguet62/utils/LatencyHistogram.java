@@ -0,0 +1,128 @@
+package fr.pinguet62.utils;
+
+/**
+ * Histogram of non-negative values, with a bounded relative error.<br />
+ * Values lower than 16 have their own bucket; others are grouped by power of 2,
+ * each one split into 8 buckets: a percentile is at most 12.5% above the real
+ * value. Memory is fixed, whatever the number of values.<br />
+ * Thread-safe.
+ */
+public final class LatencyHistogram {
+
+    /** The number of buckets per power of 2. */
+    private static final int SUB_BUCKETS = 8;
+
+    /** The number of values with their own bucket. */
+    private static final int LINEAR_BUCKETS = 2 * LatencyHistogram.SUB_BUCKETS;
+
+    /**
+     * Gets the index of the bucket of a value.
+     * 
+     * @param value
+     *            The value.
+     * @return The index.
+     */
+    private static int bucketOf(final long value) {
+	if (value < LatencyHistogram.LINEAR_BUCKETS)
+	    return (int) value;
+	int exponent = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+	int sub = (int) (value >>> (exponent - 3))
+		& (LatencyHistogram.SUB_BUCKETS - 1);
+	return LatencyHistogram.LINEAR_BUCKETS
+		+ ((exponent - 4) * LatencyHistogram.SUB_BUCKETS) + sub;
+    }
+
+    /**
+     * Gets the highest value of a bucket.
+     * 
+     * @param bucket
+     *            The index of the bucket.
+     * @return The value.
+     */
+    private static long highestOf(final int bucket) {
+	if (bucket < LatencyHistogram.LINEAR_BUCKETS)
+	    return bucket;
+	int index = bucket - LatencyHistogram.LINEAR_BUCKETS;
+	int exponent = (index / LatencyHistogram.SUB_BUCKETS) + 4;
+	int sub = index % LatencyHistogram.SUB_BUCKETS;
+	long lowest = (1L << exponent) + ((long) sub << (exponent - 3));
+	return (lowest + (1L << (exponent - 3))) - 1;
+    }
+
+    /** The number of values of each bucket. */
+    private final long[] counts = new long[LatencyHistogram
+	    .bucketOf(Long.MAX_VALUE) + 1];
+
+    /** The number of values. */
+    private long count;
+
+    /** The maximal value. */
+    private long max;
+
+    /**
+     * Gets the number of values.
+     * 
+     * @return The number.
+     */
+    public synchronized long getCount() {
+	return count;
+    }
+
+    /**
+     * Gets the maximal value.
+     * 
+     * @return The value, 0 if none.
+     */
+    public synchronized long getMax() {
+	return max;
+    }
+
+    /**
+     * Gets a percentile.
+     * 
+     * @param percentile
+     *            The percentile, between 0 and 100.
+     * @return The highest value of the bucket containing the percentile, not
+     *         above the maximal value; 0 if none.
+     * @throws IllegalArgumentException
+     *             Percentile not between 0 and 100.
+     */
+    public synchronized long getPercentile(final double percentile) {
+	if ((percentile < 0) || (100 < percentile))
+	    throw new IllegalArgumentException(
+		    "Percentile not between 0 and 100: " + percentile);
+	if (count == 0)
+	    return 0;
+	long rank = Math.max(1, (long) Math.ceil((count * percentile) / 100));
+	long seen = 0;
+	for (int bucket = 0; bucket < counts.length; bucket++) {
+	    seen += counts[bucket];
+	    if (rank <= seen)
+		return Math.min(max, LatencyHistogram.highestOf(bucket));
+	}
+	return max;
+    }
+
+    /**
+     * Record a value.
+     * 
+     * @param value
+     *            The value.
+     * @throws IllegalArgumentException
+     *             Negative value.
+     */
+    public synchronized void record(final long value) {
+	if (value < 0)
+	    throw new IllegalArgumentException("Negative value: " + value);
+	counts[LatencyHistogram.bucketOf(value)]++;
+	count++;
+	max = Math.max(max, value);
+    }
+
+    @Override
+    public synchronized String toString() {
+	return String.format("count=%d, p50=%d, p99=%d, max=%d", count,
+		getPercentile(50), getPercentile(99), max);
+    }
+
+}
@@ -0,0 +1,127 @@
+package fr.pinguet62.utils;
+
+/**
+ * Hash map of primitive <code>long</code> keys to primitive <code>int</code>
+ * values, without boxing.<br />
+ * Open addressing with linear probing into power-of-two sized arrays.
+ */
+public final class LongIntHashMap {
+
+    /** The initial capacity. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Gets the hash of a key.
+     * 
+     * @param key
+     *            The key.
+     * @return The hash.
+     */
+    private static int hash(final long key) {
+	long h = key * 0x9E3779B97F4A7C15L;
+	return (int) (h ^ (h >>> 32));
+    }
+
+    /** If the key <code>0</code> is present. */
+    private boolean hasZeroKey;
+
+    /**
+     * The keys.<br />
+     * <code>0</code> is a free slot: the key <code>0</code> is stored apart.
+     */
+    private long[] keys = new long[LongIntHashMap.INITIAL_CAPACITY];
+
+    /** The number of entries. */
+    private int size;
+
+    /** The values. */
+    private int[] values = new int[LongIntHashMap.INITIAL_CAPACITY];
+
+    /** The value of the key <code>0</code>. */
+    private int zeroValue;
+
+    /**
+     * Gets the value of the key.
+     * 
+     * @param key
+     *            The key.
+     * @param defaultValue
+     *            The value returned if the key is absent.
+     * @return The value, or default value if the key is absent.
+     */
+    public int get(final long key, final int defaultValue) {
+	if (key == 0)
+	    return hasZeroKey ? zeroValue : defaultValue;
+
+	int mask = keys.length - 1;
+	for (int i = LongIntHashMap.hash(key) & mask;; i = (i + 1) & mask) {
+	    if (keys[i] == key)
+		return values[i];
+	    if (keys[i] == 0)
+		return defaultValue;
+	}
+    }
+
+    /**
+     * Puts the value of the key.
+     * 
+     * @param key
+     *            The key.
+     * @param value
+     *            The value.
+     */
+    public void put(final long key, final int value) {
+	if (key == 0) {
+	    if (!hasZeroKey)
+		size++;
+	    hasZeroKey = true;
+	    zeroValue = value;
+	    return;
+	}
+
+	int mask = keys.length - 1;
+	int i = LongIntHashMap.hash(key) & mask;
+	while ((keys[i] != 0) && (keys[i] != key))
+	    i = (i + 1) & mask;
+	values[i] = value;
+	if (keys[i] == 0) {
+	    keys[i] = key;
+	    size++;
+	    // Load factor: 1/2
+	    if ((size * 2) > keys.length)
+		resize(keys.length * 2);
+	}
+    }
+
+    /**
+     * Rehash entries into new arrays.
+     * 
+     * @param capacity
+     *            The new capacity.
+     */
+    private void resize(final int capacity) {
+	long[] oldKeys = keys;
+	int[] oldValues = values;
+	keys = new long[capacity];
+	values = new int[capacity];
+	int mask = capacity - 1;
+	for (int j = 0; j < oldKeys.length; j++)
+	    if (oldKeys[j] != 0) {
+		int i = LongIntHashMap.hash(oldKeys[j]) & mask;
+		while (keys[i] != 0)
+		    i = (i + 1) & mask;
+		keys[i] = oldKeys[j];
+		values[i] = oldValues[j];
+	    }
+    }
+
+    /**
+     * Gets the number of entries.
+     * 
+     * @return The number of entries.
+     */
+    public int size() {
+	return size;
+    }
+
+}
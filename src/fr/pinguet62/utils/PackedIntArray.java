@@ -0,0 +1,109 @@
+package fr.pinguet62.utils;
+
+/**
+ * Fixed-length array of non-negative integers packed into a <code>long</code>
+ * array, using only the number of bits needed by the maximal value.<br />
+ * Example: with a maximal value of 17, each value costs 5 bits instead of 32.
+ */
+public final class PackedIntArray {
+
+    /**
+     * Gets the number of bits needed to store values between 0 and the maximal
+     * value.
+     * 
+     * @param maxValue
+     *            The maximal value.
+     * @return The number of bits, at least 1.
+     */
+    public static int bitsFor(final int maxValue) {
+	return Math.max(1,
+		Integer.SIZE - Integer.numberOfLeadingZeros(maxValue));
+    }
+
+    /** The number of bits per value. */
+    private final int bitsPerValue;
+
+    /** The length. */
+    private final int length;
+
+    /** The mask of a value. */
+    private final long mask;
+
+    /** The packed values. */
+    private final long[] words;
+
+    /**
+     * Constructor.<br />
+     * All values are initialized to 0.
+     * 
+     * @param length
+     *            The number of values.
+     * @param maxValue
+     *            The maximal value to store.
+     * @throws IllegalArgumentException
+     *             Negative length or maximal value.
+     */
+    public PackedIntArray(final int length, final int maxValue) {
+	if ((length < 0) || (maxValue < 0))
+	    throw new IllegalArgumentException(
+		    "Length and maximal value can't be negative.");
+	this.length = length;
+	bitsPerValue = PackedIntArray.bitsFor(maxValue);
+	mask = (1L << bitsPerValue) - 1;
+	long bits = (long) length * bitsPerValue;
+	words = new long[(int) ((bits + Long.SIZE - 1) / Long.SIZE)];
+    }
+
+    /**
+     * Gets the value at index.
+     * 
+     * @param index
+     *            The index.
+     * @return The value.
+     */
+    public int get(final int index) {
+	long bit = (long) index * bitsPerValue;
+	int word = (int) (bit >>> 6);
+	int offset = (int) (bit & 63);
+	long value = words[word] >>> offset;
+	if ((offset + bitsPerValue) > Long.SIZE)
+	    value |= words[word + 1] << (Long.SIZE - offset);
+	return (int) (value & mask);
+    }
+
+    /**
+     * Gets the number of values.
+     * 
+     * @return The length.
+     */
+    public int length() {
+	return length;
+    }
+
+    /**
+     * Sets the value at index.
+     * 
+     * @param index
+     *            The index.
+     * @param value
+     *            The value.
+     * @throws IllegalArgumentException
+     *             Value out of range.
+     */
+    public void set(final int index, final int value) {
+	if ((value < 0) || (mask < value))
+	    throw new IllegalArgumentException("Value out of range.");
+
+	long bit = (long) index * bitsPerValue;
+	int word = (int) (bit >>> 6);
+	int offset = (int) (bit & 63);
+	words[word] = (words[word] & ~(mask << offset))
+		| ((long) value << offset);
+	if ((offset + bitsPerValue) > Long.SIZE) {
+	    int shift = Long.SIZE - offset;
+	    words[word + 1] = (words[word + 1] & ~(mask >>> shift))
+		    | ((long) value >>> shift);
+	}
+    }
+
+}